@@ -0,0 +1,14 @@
+-- Schema needed by the change feed that tells each client what the others wrote (Database/ChangeFeed).
+-- Run once against the application schema by an account that may create tables.
+-- The client only reads and writes this table; it does not create it.
+
+-- One row per insert, update or delete of an appointment or customer, written in the same transaction as the change.
+CREATE TABLE IF NOT EXISTS change_log (
+    Change_ID BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    Table_Name VARCHAR(50) NOT NULL,
+    Row_ID INT NOT NULL,
+    Operation VARCHAR(10) NOT NULL,
+    Client_ID CHAR(36) NOT NULL,
+    Changed_At TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    INDEX (Changed_At)
+);
@@ -0,0 +1,17 @@
+-- Schema needed by the delta refresh of appointments and customers (Database/DeltaSync).
+-- Run once against the application schema by an account that may create tables and indexes.
+-- The client only reads and writes these objects; it does not create them.
+
+-- Tombstones for deleted rows, written in the same transaction as the delete.
+CREATE TABLE IF NOT EXISTS tombstones (
+    Table_Name VARCHAR(50) NOT NULL,
+    Row_ID INT NOT NULL,
+    Deleted_At TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (Table_Name, Row_ID),
+    INDEX (Deleted_At)
+);
+
+-- Lets each pull read only the rows changed since the watermark instead of scanning the table.
+-- Skip a statement if the table already has an index starting with Last_Update.
+CREATE INDEX Last_Update_Index ON appointments (Last_Update);
+CREATE INDEX Last_Update_Index ON customers (Last_Update);
@@ -0,0 +1,12 @@
+-- Schema needed to hand out appointment and customer IDs (Database/IdAllocator).
+-- Run once against the application schema by an account that may create tables.
+-- The client only reserves blocks from these rows; it does not create the table or the rows.
+
+-- The next unreserved ID of each table. A row starting at 1 is safe on a populated table: reserving a block never
+-- goes below MAX(id) + 1.
+CREATE TABLE IF NOT EXISTS id_sequences (
+    Sequence_Name VARCHAR(50) NOT NULL PRIMARY KEY,
+    Next_Value INT NOT NULL
+);
+
+INSERT IGNORE INTO id_sequences (Sequence_Name, Next_Value) VALUES ('appointments', 1), ('customers', 1);
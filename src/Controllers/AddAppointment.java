@@ -16,7 +16,6 @@ import javafx.scene.text.Text;
 import javafx.stage.Stage;
 
 import java.io.IOException;
-import java.sql.SQLException;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -64,10 +63,8 @@ public class AddAppointment {
     /**
      * Initializes the form by setting focus on the submit button, setting up
      * the combo boxes, and setting up the time combo boxes.
-     *
-     * @throws SQLException if there is an error retrieving data from the database
      */
-    public void initialize() throws SQLException {
+    public void initialize() {
         submitButton.setFocusTraversable(true);
         Platform.runLater(() -> submitButton.requestFocus());
 
@@ -88,23 +85,24 @@ public class AddAppointment {
     }
 
     /**
-     * Fetches data from the database and populates the corresponding ComboBoxes
-     *
-     * @throws SQLException if there is an error retrieving data from the database
+     * Fetches data from the database in the background and populates the corresponding ComboBoxes
      */
-    public void setComboBoxes() throws SQLException {
-        ObservableList<Customer> customerList = CustomerHelper.fetchCustomers();
-        for (Customer customer : customerList) {
-            customerComboBox.getItems().add(customer.getCustomerName());
-        }
-        ObservableList<User> usersList = UserHelper.fetchUsers();
-        for (User user : usersList) {
-            userComboBox.getItems().add(user.getUsername());
-        }
-        ObservableList<Contact> contactsList = ContactHelper.fetchContacts();
-        for (Contact contact : contactsList) {
-            contactComboBox.getItems().add(contact.getContactName());
-        }
+    public void setComboBoxes() {
+        DataService.load(CustomerHelper::fetchCustomers, customerList -> {
+            for (Customer customer : customerList) {
+                customerComboBox.getItems().add(customer.getCustomerName());
+            }
+        });
+        DataService.load(UserHelper::fetchUsers, usersList -> {
+            for (User user : usersList) {
+                userComboBox.getItems().add(user.getUsername());
+            }
+        });
+        DataService.load(ContactHelper::fetchContacts, contactsList -> {
+            for (Contact contact : contactsList) {
+                contactComboBox.getItems().add(contact.getContactName());
+            }
+        });
     }
 
     /**
@@ -150,11 +148,8 @@ public class AddAppointment {
     /**
      * Validates and submits a new appointment to the database.
      * Returns to Appointment Homepage after successful submission.
-     *
-     * @throws IOException  if there is an error with input/output
-     * @throws SQLException if there is an error retrieving data from the database
      */
-    public void submit() throws IOException, SQLException {
+    public void submit() {
         // gets Strings for getIDbyName methods in helper classes
         String customerName = (String) customerComboBox.getValue();
         String userName = (String) userComboBox.getValue();
@@ -173,14 +168,9 @@ public class AddAppointment {
             return;
         }
 
-        String type = null;
         String vehicleOrCostText = vehicleOrCostTextField.getText();
         String financingOrTypeText = (String) financingOrTypeComboBox.getValue();
 
-        int appointmentID = AppointmentHelper.maxID();
-        int customerID = CustomerHelper.getCustomerIDByName(customerName);
-        int userID = UserHelper.getUserIDByName(userName);
-        int contactID = ContactHelper.getContactIDByName(contactName);
         String title = titleTextField.getText();
         String description = descriptionTextField.getText();
         String location = locationTextField.getText();
@@ -223,16 +213,6 @@ public class AddAppointment {
             return;
         }
 
-        // checks if the new appointment overlaps with existing appointments with the customer
-        if (AppointmentHelper.isAppointmentOverlap(startDateTime, endDateTime, customerID, appointmentID)) {
-            Alert alert = new Alert(Alert.AlertType.ERROR);
-            alert.setTitle("Error");
-            alert.setHeaderText(null);
-            alert.setContentText("This appointment overlaps with an existing appointment with this customer.");
-            alert.showAndWait();
-            return;
-        }
-
         // checks if appointment starts before 8AM or ends after 10PM in EST timezone
         ZonedDateTime startInEST = startDateTime.atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneId.of("America/New_York"));
         ZonedDateTime endInEST = endDateTime.atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneId.of("America/New_York"));
@@ -247,11 +227,8 @@ public class AddAppointment {
             return;
         }
 
-        if (salesRadioButton.isSelected()) {
-            type = "Sales Appointment";
-            AppointmentHelper.createAppointment(appointmentID, title, description, location, type, startDateTime, endDateTime, customerID, userID, contactID);
-            SalesAppointmentHelper.createSalesAppointment(appointmentID, title, description, location, vehicleOrCostText, financingOrTypeText, startDateTime, endDateTime, customerID, userID, contactID);
-        } else if (serviceRadioButton.isSelected()) {
+        boolean sales = salesRadioButton.isSelected();
+        if (!sales) {
             try {
                 Double.parseDouble(vehicleOrCostText);
             } catch (NumberFormatException e) {
@@ -262,13 +239,50 @@ public class AddAppointment {
                 alert.showAndWait();
                 return;
             }
-            type = "Service Appointment";
-            AppointmentHelper.createAppointment(appointmentID, title, description, location, type, startDateTime, endDateTime, customerID, userID, contactID);
-            ServiceAppointmentHelper.createServiceAppointment(appointmentID, title, description, location, Double.parseDouble(vehicleOrCostText), financingOrTypeText, startDateTime, endDateTime, customerID, userID, contactID);
         }
+        String type = sales ? "Sales Appointment" : "Service Appointment";
+
+        // looks up the IDs, checks for overlapping appointments with the customer and saves in the background; submit
+        // stays disabled until the save has finished so it cannot run twice
+        submitButton.setDisable(true);
+        DataService.load(() -> {
+            int appointmentID = AppointmentHelper.nextID();
+            int customerID = CustomerHelper.getCustomerIDByName(customerName);
+            int userID = UserHelper.getUserIDByName(userName);
+            int contactID = ContactHelper.getContactIDByName(contactName);
+            if (AppointmentHelper.isAppointmentOverlap(startDateTime, endDateTime, customerID, appointmentID)) {
+                return false;
+            }
 
-        goToAppointmentHomepage();
-
+            UnitOfWork work = new UnitOfWork();
+            AppointmentHelper.createAppointment(work, appointmentID, title, description, location, type, startDateTime, endDateTime, customerID, userID, contactID);
+            if (sales) {
+                SalesAppointmentHelper.createSalesAppointment(work, appointmentID, title, description, location, vehicleOrCostText, financingOrTypeText, startDateTime, endDateTime, customerID, userID, contactID);
+            } else {
+                ServiceAppointmentHelper.createServiceAppointment(work, appointmentID, title, description, location, Double.parseDouble(vehicleOrCostText), financingOrTypeText, startDateTime, endDateTime, customerID, userID, contactID);
+            }
+            work.commit();
+            return true;
+        }, created -> {
+            if (!created) {
+                Alert alert = new Alert(Alert.AlertType.ERROR);
+                alert.setTitle("Error");
+                alert.setHeaderText(null);
+                alert.setContentText("This appointment overlaps with an existing appointment with this customer.");
+                alert.showAndWait();
+                submitButton.setDisable(false);
+                return;
+            }
+            try {
+                goToAppointmentHomepage();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, error -> {
+            submitButton.setDisable(false);
+            Alert alert = new Alert(Alert.AlertType.ERROR, DataService.describeFailure(error), ButtonType.OK);
+            alert.showAndWait();
+        });
     }
 
     /**
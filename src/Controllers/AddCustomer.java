@@ -1,6 +1,7 @@
 package Controllers;
 
 import Database.CustomerHelper;
+import Database.DataService;
 import Database.DivisionHelper;
 import Models.Division;
 import javafx.application.Platform;
@@ -12,7 +13,6 @@ import javafx.scene.control.*;
 import javafx.stage.Stage;
 
 import java.io.IOException;
-import java.sql.SQLException;
 
 /**
  * The AddCustomer class manages the functionality for adding a new customer to the database.
@@ -30,6 +30,7 @@ public class AddCustomer {
     private ComboBox countryComboBox;
     @FXML
     private ComboBox<Division> divisionComboBox;
+    private final DataService.Latest divisionLoad = new DataService.Latest();
     @FXML
     private Button submitButton;
 
@@ -39,52 +40,38 @@ public class AddCustomer {
      *
      * Registers an event handler for the country combo box which invokes the divisionSelector method.
      * Lambda expression to define the event handler for the country combo box.
-     *
-     * @throws SQLException if there is an error retrieving data from the database
      */
     public void initialize() {
         submitButton.setFocusTraversable(true);
         Platform.runLater(() -> submitButton.requestFocus());
 
-        countryComboBox.setOnAction(event -> {
-            try {
-                divisionSelector();
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
-        });
+        countryComboBox.setOnAction(event -> divisionSelector());
 
     }
 
     /**
      * Fetches the divisions for the country selected in the country combo box and populates the division combo box with
-     * the fetched divisions.
-     *
-     * @throws SQLException if there is an error while fetching the divisions from the database.
+     * the fetched divisions. A load still running for a previously selected country is dropped.
      */
-    public void divisionSelector() throws SQLException {
+    public void divisionSelector() {
         int countryID;
         if (countryComboBox.getValue().equals("United States")) {
             countryID = 1;
-            divisionComboBox.setItems(DivisionHelper.fetchDivisions(countryID));
+            divisionLoad.load(() -> DivisionHelper.fetchDivisions(countryID), divisionComboBox::setItems);
         } else if (countryComboBox.getValue().equals("United Kingdom")) {
             countryID = 2;
-            divisionComboBox.setItems(DivisionHelper.fetchDivisions(countryID));
+            divisionLoad.load(() -> DivisionHelper.fetchDivisions(countryID), divisionComboBox::setItems);
         } else if (countryComboBox.getValue().equals("Canada")) {
             countryID = 3;
-            divisionComboBox.setItems(DivisionHelper.fetchDivisions(countryID));
+            divisionLoad.load(() -> DivisionHelper.fetchDivisions(countryID), divisionComboBox::setItems);
         }
     }
 
     /**
      * Validates and submits a new customer to the database.
      * Returns to Customer Homepage after successful submission.
-     *
-     * @throws IOException  if there is an error with input/output
-     * @throws SQLException if there is an error retrieving data from the database
      */
-    public void submit() throws IOException, SQLException {
-        int customerID = CustomerHelper.maxID();
+    public void submit() {
         String customerName = nameTextField.getText();
         String customerNumber = numberTextField.getText();
         String customerAddress = addressTextField.getText();
@@ -96,8 +83,22 @@ public class AddCustomer {
             alert.showAndWait();
         } else {
             int customerDivision = divisionComboBox.getValue().getDivisionID();
-            CustomerHelper.createCustomer(customerID, customerName, customerAddress, customerPostalCode, customerNumber, customerDivision);
-            goToCustomerHomepage();
+            submitButton.setDisable(true);
+            DataService.load(() -> {
+                int customerID = CustomerHelper.nextID();
+                CustomerHelper.createCustomer(customerID, customerName, customerAddress, customerPostalCode, customerNumber, customerDivision);
+                return null;
+            }, ignored -> {
+                try {
+                    goToCustomerHomepage();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }, error -> {
+                submitButton.setDisable(false);
+                Alert alert = new Alert(Alert.AlertType.ERROR, DataService.describeFailure(error), ButtonType.OK);
+                alert.showAndWait();
+            });
         }
     }
 
@@ -1,18 +1,22 @@
 package Controllers;
 
 import Database.AppointmentHelper;
+import Database.DataService;
 import Database.CustomerHelper;
 import Database.SalesAppointmentHelper;
 import Database.ServiceAppointmentHelper;
+import Database.UnitOfWork;
 import Models.Appointment;
 import Models.Customer;
 import Models.SalesAppointment;
 import Models.ServiceAppointment;
+import javafx.animation.PauseTransition;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -22,10 +26,15 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.input.KeyCode;
 import javafx.stage.Stage;
 import javafx.util.Callback;
+import javafx.util.Duration;
 
 import java.io.IOException;
-import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * The AppointmentHomepage class is responsible for displaying the list of appointments and their corresponding parts.
@@ -39,7 +48,7 @@ public class AppointmentHomepage {
     @FXML
     private RadioButton weekRadioButton;
     @FXML
-    private TableView appointmentTable;
+    private TableView<Appointment> appointmentTable;
     @FXML
     private TableColumn appointmentIDColumn;
     @FXML
@@ -66,55 +75,51 @@ public class AppointmentHomepage {
     private TableColumn appointmentContactID;
     @FXML
     private Button addAppointmentButton;
+    @FXML
+    private Button deleteAppointmentButton;
     private ToggleGroup appointmentToggleGroup;
+    private List<Appointment> allAppointments = new ArrayList<>();
+    private long[] startEpochSeconds = new long[0];
+    private FilteredList<Appointment> rangeAppointments;
+    private Set<Integer> searchMatches = null;
+    private final DataService.Latest tableLoad = new DataService.Latest();
+    private final DataService.Latest searchLoad = new DataService.Latest();
+    private final PauseTransition searchDebounce = new PauseTransition(Duration.millis(250));
 
     /**
-     * Initializes the homepage by displaying the data retrieved from the database. Initializes the toggle group and
-     * listens for a click on a radio button and displays appointments according to the clicked radio button.
-     *
-     * @throws SQLException if there is an error retrieving data from the database
+     * Initializes the homepage by loading every appointment once. Initializes the toggle group and listens for a click
+     * on a radio button and displays appointments according to the clicked radio button.
+     * <p>
+     * The radio buttons and the search field only filter the loaded appointments, so switching views or typing does
+     * not reach the database.
      */
-    public void initialize() throws SQLException {
-        // default
-        setAppointmentTableAll(appointmentSearch.getText());
+    public void initialize() {
+        setUpColumns();
+        tableLoad.load(AppointmentHelper::fetchAppointments, appointments -> {
+            allAppointments = new ArrayList<>(appointments);
+            indexStartTimes();
+            showSelectedRange();
+        });
 
         appointmentToggleGroup = new ToggleGroup();
         allRadioButton.setToggleGroup(appointmentToggleGroup);
         monthRadioButton.setToggleGroup(appointmentToggleGroup);
         weekRadioButton.setToggleGroup(appointmentToggleGroup);
 
-        allRadioButton.setOnAction(event -> {
-            try {
-                setAppointmentTableAll(appointmentSearch.getText());
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
-        });
-        monthRadioButton.setOnAction(event -> {
-            try {
-                setAppointmentTableMonth(appointmentSearch.getText());
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
-        });
-        weekRadioButton.setOnAction(event -> {
-            try {
-                setAppointmentTableWeek(appointmentSearch.getText());
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
-        });
+        allRadioButton.setOnAction(event -> showSelectedRange());
+        monthRadioButton.setOnAction(event -> showSelectedRange());
+        weekRadioButton.setOnAction(event -> showSelectedRange());
 
+        // searches as the user types, once they pause; Enter searches straight away
+        searchDebounce.setOnFinished(event -> searchAppointments(appointmentSearch.getText(), false));
+        appointmentSearch.textProperty().addListener((observable, oldValue, newValue) -> searchDebounce.playFromStart());
         appointmentSearch.setOnKeyPressed(event -> {
             if (event.getCode() == KeyCode.ENTER) {
-                String searchQuery = appointmentSearch.getText();
-                try {
-                    searchAppointments(searchQuery);
-                } catch (SQLException e) {
-                    throw new RuntimeException(e);
-                }
+                searchDebounce.stop();
+                searchAppointments(appointmentSearch.getText());
             }
         });
+        appointmentTable.setPlaceholder(new Label("No appointments found."));
 
     }
 
@@ -142,10 +147,9 @@ public class AppointmentHomepage {
      * Edit Appointment view. If no appointment is selected, an error message is displayed.
      *
      * @throws IOException  If the FXML file for the Edit Appointment view cannot be found.
-     * @throws SQLException if there is an error retrieving data from the database
      */
-    public void goToEditAppointment() throws IOException, SQLException {
-        Appointment selectedAppointment = (Appointment) appointmentTable.getSelectionModel().getSelectedItem();
+    public void goToEditAppointment() throws IOException {
+        Appointment selectedAppointment = appointmentTable.getSelectionModel().getSelectedItem();
         if (selectedAppointment == null) {
             Alert alert = new Alert(Alert.AlertType.ERROR, "Please select a customer to edit.", ButtonType.OK);
             alert.showAndWait();
@@ -180,12 +184,11 @@ public class AppointmentHomepage {
 
 
     /**
-     * Deletes the selected appointment from the appointment table and the database.
-     *
-     * @throws SQLException if there is an error retrieving data from the database
+     * Deletes the selected appointment from the appointment table and the database. Only the deleted row is removed
+     * from the table, so the rest of the view does not have to be reloaded.
      */
-    public void deleteAppointment() throws SQLException {
-        Appointment selectedAppointment = (Appointment) appointmentTable.getSelectionModel().getSelectedItem();
+    public void deleteAppointment() {
+        Appointment selectedAppointment = appointmentTable.getSelectionModel().getSelectedItem();
         if (selectedAppointment == null) {
             Alert alert = new Alert(Alert.AlertType.ERROR, "Please select an appointment to delete.", ButtonType.OK);
             alert.showAndWait();
@@ -197,20 +200,44 @@ public class AppointmentHomepage {
                 // Delete service appointment
                 if (deletedAppointmentType.equals("Service Appointment")) {
                     int appointmentID = selectedAppointment.getAppointmentID();
-                    ServiceAppointmentHelper.deleteAppointment(appointmentID);
-                    AppointmentHelper.deleteAppointment(appointmentID);
-                    appointmentTable.setItems(AppointmentHelper.fetchAppointments());
-                    Alert serviceSuccessAlert = new Alert(Alert.AlertType.INFORMATION, "Service appointment with ID: " + appointmentID + " has been deleted successfully.", ButtonType.OK);
-                    serviceSuccessAlert.showAndWait();
+                    UnitOfWork work = new UnitOfWork();
+                    ServiceAppointmentHelper.deleteAppointment(work, appointmentID);
+                    AppointmentHelper.deleteAppointment(work, appointmentID);
+                    deleteAppointmentButton.setDisable(true);
+                    DataService.load(() -> {
+                        work.commit();
+                        return null;
+                    }, ignored -> {
+                        deleteAppointmentButton.setDisable(false);
+                        removeAppointment(selectedAppointment);
+                        Alert serviceSuccessAlert = new Alert(Alert.AlertType.INFORMATION, "Service appointment with ID: " + appointmentID + " has been deleted successfully.", ButtonType.OK);
+                        serviceSuccessAlert.showAndWait();
+                    }, error -> {
+                        deleteAppointmentButton.setDisable(false);
+                        Alert errorAlert = new Alert(Alert.AlertType.ERROR, DataService.describeFailure(error), ButtonType.OK);
+                        errorAlert.showAndWait();
+                    });
 
                     // Delete sales appointment
                 } else if (deletedAppointmentType.equals("Sales Appointment")) {
                     int appointmentID = selectedAppointment.getAppointmentID();
-                    SalesAppointmentHelper.deleteAppointment(appointmentID);
-                    AppointmentHelper.deleteAppointment(appointmentID);
-                    appointmentTable.setItems(AppointmentHelper.fetchAppointments());
-                    Alert successAlert = new Alert(Alert.AlertType.INFORMATION, "Sales appointment with ID: " + appointmentID + " has been deleted successfully.", ButtonType.OK);
-                    successAlert.showAndWait();
+                    UnitOfWork work = new UnitOfWork();
+                    SalesAppointmentHelper.deleteAppointment(work, appointmentID);
+                    AppointmentHelper.deleteAppointment(work, appointmentID);
+                    deleteAppointmentButton.setDisable(true);
+                    DataService.load(() -> {
+                        work.commit();
+                        return null;
+                    }, ignored -> {
+                        deleteAppointmentButton.setDisable(false);
+                        removeAppointment(selectedAppointment);
+                        Alert successAlert = new Alert(Alert.AlertType.INFORMATION, "Sales appointment with ID: " + appointmentID + " has been deleted successfully.", ButtonType.OK);
+                        successAlert.showAndWait();
+                    }, error -> {
+                        deleteAppointmentButton.setDisable(false);
+                        Alert errorAlert = new Alert(Alert.AlertType.ERROR, DataService.describeFailure(error), ButtonType.OK);
+                        errorAlert.showAndWait();
+                    });
                 }
             }
         }
@@ -218,97 +245,83 @@ public class AppointmentHomepage {
 
 
     /**
-     * Sets the appointment table to display all appointments.
+     * Removes a deleted appointment from the loaded appointments and refreshes the table.
      *
-     * @throws SQLException if there is an error retrieving data from the database.
+     * @param appointment the deleted appointment
      */
-    public void setAppointmentTableAll(String searchQuery) throws SQLException {
-        appointmentTable.setItems(AppointmentHelper.fetchAppointmentsSearch(searchQuery));
-
-        appointmentIDColumn.setCellValueFactory(new PropertyValueFactory<>("appointmentID"));
-        appointmentTitleColumn.setCellValueFactory(new PropertyValueFactory<>("appointmentTitle"));
-        appointmentDescriptionColumn.setCellValueFactory(new PropertyValueFactory<>("appointmentTitle"));
-        appointmentLocationColumn.setCellValueFactory(new PropertyValueFactory<>("appointmentLocation"));
-        appointmentTypeColumn.setCellValueFactory(new PropertyValueFactory<>("appointmentType"));
-        appointmentStartColumn.setCellValueFactory(new PropertyValueFactory<>("startDateTime"));
-        appointmentEndColumn.setCellValueFactory(new PropertyValueFactory<>("endDateTime"));
-        appointmentCustomerID.setCellValueFactory(new PropertyValueFactory<>("customerID"));
-        appointmentUserID.setCellValueFactory(new PropertyValueFactory<>("userID"));
-        appointmentContactID.setCellValueFactory(new PropertyValueFactory<>("contactID"));
-
-        vehicleOrCostColumn.setCellValueFactory((Callback<TableColumn.CellDataFeatures<Appointment, String>, ObservableValue<String>>) cellData -> {
-            Appointment appointment = cellData.getValue();
-            if (appointment instanceof SalesAppointment) {
-                return new SimpleStringProperty(((SalesAppointment) appointment).getVehicle());
-            } else if (appointment instanceof ServiceAppointment){
-                return new SimpleDoubleProperty(((ServiceAppointment) appointment).getServiceCost()).asString();
-            }
-            return null;
-        });
-
-        financingOrServiceColumn.setCellValueFactory((Callback<TableColumn.CellDataFeatures<Appointment, String>, ObservableValue<String>>) cellData -> {
-            Appointment appointment = cellData.getValue();
-            if (appointment instanceof SalesAppointment) {
-                return new SimpleStringProperty(((SalesAppointment) appointment).getFinancingOptions());
-            } else if (appointment instanceof ServiceAppointment) {
-                return new SimpleStringProperty(((ServiceAppointment) appointment).getServiceType());
-            }
-            return null;
-        });
+    private void removeAppointment(Appointment appointment) {
+        allAppointments.remove(appointment);
+        indexStartTimes();
+        showSelectedRange();
     }
 
+    /**
+     * Records the start time of every loaded appointment. The appointments are in start time order, so the month and
+     * week views are found by binary search in this index instead of by testing every appointment.
+     */
+    private void indexStartTimes() {
+        startEpochSeconds = new long[allAppointments.size()];
+        for (int i = 0; i < startEpochSeconds.length; i++) {
+            startEpochSeconds[i] = allAppointments.get(i).getStartEpochSecond();
+        }
+    }
 
     /**
-     * Sets the appointment table to display appointments by month.
+     * Returns the position of the first loaded appointment starting at or after a time.
      *
-     * @throws SQLException if there is an error retrieving data from the database.
+     * @param time the time to look up
+     * @return the index of the first appointment starting at or after the time, or the number of appointments if
+     * there is none
      */
-    public void setAppointmentTableMonth(String searchQuery) throws SQLException {
-        appointmentTable.setItems(AppointmentHelper.fetchAppointmentsByMonth(searchQuery));
-
-        appointmentIDColumn.setCellValueFactory(new PropertyValueFactory<>("appointmentID"));
-        appointmentTitleColumn.setCellValueFactory(new PropertyValueFactory<>("appointmentTitle"));
-        appointmentDescriptionColumn.setCellValueFactory(new PropertyValueFactory<>("appointmentTitle"));
-        appointmentLocationColumn.setCellValueFactory(new PropertyValueFactory<>("appointmentLocation"));
-        appointmentTypeColumn.setCellValueFactory(new PropertyValueFactory<>("appointmentType"));
-        appointmentStartColumn.setCellValueFactory(new PropertyValueFactory<>("startDateTime"));
-        appointmentEndColumn.setCellValueFactory(new PropertyValueFactory<>("endDateTime"));
-        appointmentCustomerID.setCellValueFactory(new PropertyValueFactory<>("customerID"));
-        appointmentUserID.setCellValueFactory(new PropertyValueFactory<>("userID"));
-        appointmentContactID.setCellValueFactory(new PropertyValueFactory<>("contactID"));
-
-        vehicleOrCostColumn.setCellValueFactory((Callback<TableColumn.CellDataFeatures<Appointment, String>, ObservableValue<String>>) cellData -> {
-            Appointment appointment = cellData.getValue();
-            if (appointment instanceof SalesAppointment) {
-                return new SimpleStringProperty(((SalesAppointment) appointment).getVehicle());
-            } else if (appointment instanceof ServiceAppointment){
-                return new SimpleDoubleProperty(((ServiceAppointment) appointment).getServiceCost()).asString();
+    private int firstStartingAt(LocalDateTime time) {
+        long key = Appointment.toEpochSecond(time);
+        int low = 0;
+        int high = startEpochSeconds.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (startEpochSeconds[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
             }
-            return null;
-        });
+        }
+        return low;
+    }
 
-        financingOrServiceColumn.setCellValueFactory((Callback<TableColumn.CellDataFeatures<Appointment, String>, ObservableValue<String>>) cellData -> {
-            Appointment appointment = cellData.getValue();
-            if (appointment instanceof SalesAppointment) {
-                return new SimpleStringProperty(((SalesAppointment) appointment).getFinancingOptions());
-            } else if (appointment instanceof ServiceAppointment) {
-                return new SimpleStringProperty(((ServiceAppointment) appointment).getServiceType());
-            }
-            return null;
-        });
+    /**
+     * Shows the loaded appointments that start in the range of the selected radio button and match the current
+     * search. The table is backed by a sorted view of a filtered view, so clicking a column header sorts in memory.
+     */
+    private void showSelectedRange() {
+        int from = 0;
+        int to = allAppointments.size();
+        if (monthRadioButton.isSelected() || weekRadioButton.isSelected()) {
+            LocalDate startDate = monthRadioButton.isSelected() ? AppointmentHelper.startOfCurrentMonth() : AppointmentHelper.startOfCurrentWeek();
+            LocalDate endDate = monthRadioButton.isSelected() ? startDate.plusMonths(1) : startDate.plusWeeks(1);
+            from = firstStartingAt(startDate.atStartOfDay());
+            to = firstStartingAt(endDate.atStartOfDay());
+        }
+        rangeAppointments = new FilteredList<>(FXCollections.observableList(allAppointments.subList(from, to)), searchPredicate());
+        SortedList<Appointment> sortedAppointments = new SortedList<>(rangeAppointments);
+        sortedAppointments.comparatorProperty().bind(appointmentTable.comparatorProperty());
+        appointmentTable.setItems(sortedAppointments);
     }
 
     /**
-     * Sets the appointment table to display appointments by week.
-     *
-     * @throws SQLException if there is an error retrieving data from the database.
+     * Returns the filter for the current search, or null to show every appointment in the range.
      */
-    public void setAppointmentTableWeek(String searchQuery) throws SQLException {
-        appointmentTable.setItems(AppointmentHelper.fetchAppointmentsByWeek(searchQuery));
+    private Predicate<Appointment> searchPredicate() {
+        Set<Integer> matches = searchMatches;
+        return matches == null ? null : appointment -> matches.contains(appointment.getAppointmentID());
+    }
 
+    /**
+     * Sets the cell value factories of the appointment table's columns.
+     */
+    private void setUpColumns() {
         appointmentIDColumn.setCellValueFactory(new PropertyValueFactory<>("appointmentID"));
         appointmentTitleColumn.setCellValueFactory(new PropertyValueFactory<>("appointmentTitle"));
-        appointmentDescriptionColumn.setCellValueFactory(new PropertyValueFactory<>("appointmentTitle"));
+        appointmentDescriptionColumn.setCellValueFactory(new PropertyValueFactory<>("appointmentDescription"));
         appointmentLocationColumn.setCellValueFactory(new PropertyValueFactory<>("appointmentLocation"));
         appointmentTypeColumn.setCellValueFactory(new PropertyValueFactory<>("appointmentType"));
         appointmentStartColumn.setCellValueFactory(new PropertyValueFactory<>("startDateTime"));
@@ -338,21 +351,43 @@ public class AppointmentHomepage {
         });
     }
 
-    public void searchAppointments(String searchQuery) throws SQLException {
-        ObservableList<Appointment> searchedAppointments = FXCollections.observableArrayList();
-        if (allRadioButton.isSelected()) {
-            searchedAppointments = AppointmentHelper.fetchAppointmentsSearch(searchQuery);
-        } else if (weekRadioButton.isSelected()) {
-            searchedAppointments = AppointmentHelper.fetchAppointmentsByWeek(searchQuery);
-        } else if (monthRadioButton.isSelected()) {
-            searchedAppointments = AppointmentHelper.fetchAppointmentsByMonth(searchQuery);
+    public void searchAppointments(String searchQuery) {
+        searchAppointments(searchQuery, true);
+    }
+
+    /**
+     * Searches the titles, descriptions and locations of the appointments in the selected view. The matching IDs are
+     * taken from the search index in the background; the loaded appointments are then filtered in memory.
+     *
+     * @param searchQuery  the search text
+     * @param alertIfEmpty whether to show an alert when nothing matches; searches made while typing leave it to the
+     *                     table's placeholder
+     */
+    private void searchAppointments(String searchQuery, boolean alertIfEmpty) {
+        if (searchQuery.isBlank()) {
+            searchLoad.cancel();
+            applySearch(null, false);
+            return;
         }
+        searchLoad.load(() -> AppointmentHelper.fetchAppointmentMatches(searchQuery), matches -> applySearch(matches, alertIfEmpty));
+    }
 
-        if (searchedAppointments.isEmpty()) {
-            Alert alert = new Alert(Alert.AlertType.INFORMATION, "No appointment found with the searched title.", ButtonType.OK);
+    /**
+     * Filters the appointments in the selected view by the IDs matching a search.
+     *
+     * @param matches      the IDs of the matching appointments, or null to clear the search
+     * @param alertIfEmpty whether to show an alert when nothing in the view matches
+     */
+    private void applySearch(Set<Integer> matches, boolean alertIfEmpty) {
+        searchMatches = matches;
+        if (rangeAppointments == null) {
+            return;
+        }
+        rangeAppointments.setPredicate(searchPredicate());
+        if (rangeAppointments.isEmpty() && alertIfEmpty) {
+            Alert alert = new Alert(Alert.AlertType.INFORMATION, "No appointment found with the searched text.", ButtonType.OK);
             alert.showAndWait();
         }
-        appointmentTable.setItems(searchedAppointments);
     }
 
     /**
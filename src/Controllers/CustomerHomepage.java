@@ -2,8 +2,9 @@ package Controllers;
 
 import Database.AppointmentHelper;
 import Database.CustomerHelper;
+import Database.DataService;
 import Models.Customer;
-import javafx.collections.ObservableList;
+import javafx.animation.PauseTransition;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -12,9 +13,9 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.input.KeyCode;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 import java.io.IOException;
-import java.sql.SQLException;
 
 /**
  * The CustomerHomepage class is responsible for displaying the list of customers and their corresponding parts.
@@ -25,6 +26,8 @@ public class CustomerHomepage {
     @FXML
     private Button addCustomerButton;
     @FXML
+    private Button deleteCustomerButton;
+    @FXML
     private TableView customerTable;
     @FXML
     private TableColumn customerIdColumn;
@@ -40,14 +43,14 @@ public class CustomerHomepage {
     private TableColumn customerCountryColumn;
     @FXML
     private TableColumn customerPostalCodeColumn;
+    private final DataService.Latest tableLoad = new DataService.Latest();
+    private final PauseTransition searchDebounce = new PauseTransition(Duration.millis(250));
 
     /**
      * Initializes the Customer Homepage view by displaying the data retrieved from the database using the CustomerHelper class.
-     *
-     * @throws SQLException if there is an error retrieving data from the database.
      */
-    public void initialize() throws SQLException {
-        customerTable.setItems(CustomerHelper.fetchCustomers());
+    public void initialize() {
+        tableLoad.load(CustomerHelper::fetchCustomers, customerTable::setItems);
 
         customerIdColumn.setCellValueFactory(new PropertyValueFactory<>("customerID"));
         customerNameColumn.setCellValueFactory(new PropertyValueFactory<>("customerName"));
@@ -57,16 +60,16 @@ public class CustomerHomepage {
         customerCountryColumn.setCellValueFactory(new PropertyValueFactory<>("customerCountry"));
         customerPostalCodeColumn.setCellValueFactory(new PropertyValueFactory<>("customerPostalCode"));
 
+        // searches as the user types, once they pause; Enter searches straight away
+        searchDebounce.setOnFinished(event -> searchCustomers(customerSearch.getText(), false));
+        customerSearch.textProperty().addListener((observable, oldValue, newValue) -> searchDebounce.playFromStart());
         customerSearch.setOnKeyPressed(event -> {
             if (event.getCode() == KeyCode.ENTER) {
-                String searchQuery = customerSearch.getText();
-                try {
-                    searchCustomers(searchQuery);
-                } catch (SQLException e) {
-                    throw new RuntimeException(e);
-                }
+                searchDebounce.stop();
+                searchCustomers(customerSearch.getText());
             }
         });
+        customerTable.setPlaceholder(new Label("No customers found."));
 
     }
 
@@ -121,39 +124,66 @@ public class CustomerHomepage {
 
     /**
      * Deletes the selected customer from the customer table and the database.
-     *
-     * @throws SQLException if there is an error retrieving data from the database
      */
-    public void deleteCustomer() throws SQLException {
+    public void deleteCustomer() {
         Customer selectedCustomer = (Customer) customerTable.getSelectionModel().getSelectedItem();
         if (selectedCustomer == null) {
             Alert alert = new Alert(Alert.AlertType.ERROR, "Please select a customer to delete.", ButtonType.OK);
             alert.showAndWait();
         } else {
-            boolean hasAppointments = AppointmentHelper.customerHasAppointments(selectedCustomer.getCustomerID());
-            if (hasAppointments) {
-                Alert alert = new Alert(Alert.AlertType.ERROR, "Customer cannot be deleted because there are appointments associated with this customer.", ButtonType.OK);
-                alert.showAndWait();
-            } else {
-                Alert alert = new Alert(Alert.AlertType.CONFIRMATION, "Are you sure you want to delete this customer?", ButtonType.YES, ButtonType.NO);
-                alert.showAndWait();
-                if (alert.getResult() == ButtonType.YES) {
-                    CustomerHelper.deleteCustomer(selectedCustomer.getCustomerID());
-                    customerTable.setItems(CustomerHelper.fetchCustomers());
-                    Alert successAlert = new Alert(Alert.AlertType.INFORMATION, "Customer deleted successfully.", ButtonType.OK);
-                    successAlert.showAndWait();
+            // delete stays disabled until the check and the delete have finished so they cannot run twice
+            deleteCustomerButton.setDisable(true);
+            DataService.load(() -> AppointmentHelper.customerHasAppointments(selectedCustomer.getCustomerID()), hasAppointments -> {
+                if (hasAppointments) {
+                    deleteCustomerButton.setDisable(false);
+                    Alert alert = new Alert(Alert.AlertType.ERROR, "Customer cannot be deleted because there are appointments associated with this customer.", ButtonType.OK);
+                    alert.showAndWait();
+                } else {
+                    Alert alert = new Alert(Alert.AlertType.CONFIRMATION, "Are you sure you want to delete this customer?", ButtonType.YES, ButtonType.NO);
+                    alert.showAndWait();
+                    if (alert.getResult() == ButtonType.YES) {
+                        DataService.load(() -> {
+                            CustomerHelper.deleteCustomer(selectedCustomer.getCustomerID());
+                            return null;
+                        }, ignored -> {
+                            deleteCustomerButton.setDisable(false);
+                            customerTable.getItems().remove(selectedCustomer);
+                            Alert successAlert = new Alert(Alert.AlertType.INFORMATION, "Customer deleted successfully.", ButtonType.OK);
+                            successAlert.showAndWait();
+                        }, this::showDeleteError);
+                    } else {
+                        deleteCustomerButton.setDisable(false);
+                    }
                 }
-            }
+            }, this::showDeleteError);
         }
     }
 
-    public void searchCustomers(String searchQuery) throws SQLException {
-        ObservableList<Customer> searchedCustomers = CustomerHelper.searchCustomers(searchQuery);
-        if (searchedCustomers.isEmpty()) {
-            Alert alert = new Alert(Alert.AlertType.INFORMATION, "No customer found with the searched name.", ButtonType.OK);
-            alert.showAndWait();
-        }
-        customerTable.setItems(searchedCustomers);
+    private void showDeleteError(Throwable error) {
+        deleteCustomerButton.setDisable(false);
+        Alert alert = new Alert(Alert.AlertType.ERROR, DataService.describeFailure(error), ButtonType.OK);
+        alert.showAndWait();
+    }
+
+    public void searchCustomers(String searchQuery) {
+        searchCustomers(searchQuery, true);
+    }
+
+    /**
+     * Searches customers by name, tolerating typos.
+     *
+     * @param searchQuery  the search text
+     * @param alertIfEmpty whether to show an alert when nothing matches; searches made while typing leave it to the
+     *                     table's placeholder
+     */
+    private void searchCustomers(String searchQuery, boolean alertIfEmpty) {
+        tableLoad.load(() -> CustomerHelper.searchCustomers(searchQuery), searchedCustomers -> {
+            if (searchedCustomers.isEmpty() && alertIfEmpty) {
+                Alert alert = new Alert(Alert.AlertType.INFORMATION, "No customer found with the searched name.", ButtonType.OK);
+                alert.showAndWait();
+            }
+            customerTable.setItems(searchedCustomers);
+        });
     }
 
 
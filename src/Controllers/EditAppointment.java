@@ -17,7 +17,6 @@ import javafx.scene.text.Text;
 import javafx.stage.Stage;
 
 import java.io.IOException;
-import java.sql.SQLException;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -74,14 +73,14 @@ public class EditAppointment {
     private int customerID;
     private int userID;
     private int contactID;
+    private boolean descriptionLoaded = false;
+    private boolean descriptionLoading = false;
 
     /**
      * Initializes the form by setting focus on the submit button,
      * setting up the combo boxes, and setting up the time combo boxes.
-     *
-     * @throws SQLException if there is an error retrieving data from the database
      */
-    public void initialize() throws SQLException {
+    public void initialize() {
         submitButton.setFocusTraversable(true);
         Platform.runLater(() -> submitButton.requestFocus());
 
@@ -113,11 +112,10 @@ public class EditAppointment {
      * @param customerID             The ID of the customer associated with the appointment.
      * @param userID                 The ID of the user associated with the appointment.
      * @param contactID              The ID of the contact associated with the appointment.
-     * @throws SQLException if there is an error retrieving data from the database
      */
 
     public void setAppointmentData(int appointmentID, String appointmentTitle, String appointmentDescription, String appointmentLocation, String appointmentType, String vehicleOrCost,
-                                   String financingOrType, LocalDateTime startDateTime, LocalDateTime endDateTime, int customerID, int userID, int contactID) throws SQLException {
+                                   String financingOrType, LocalDateTime startDateTime, LocalDateTime endDateTime, int customerID, int userID, int contactID) {
         this.appointmentType = appointmentType;
         this.appointmentID = appointmentID;
         this.appointmentTitle = appointmentTitle;
@@ -141,11 +139,13 @@ public class EditAppointment {
 
 
         appointmentIDTextField.setText(Integer.toString(appointmentID));
-        customerComboBox.setValue(CustomerHelper.getCustomerNameByID(customerID));
-        userComboBox.setValue(UserHelper.getUserNameByID(userID));
-        contactComboBox.setValue(ContactHelper.getContactNameByID(contactID));
+        DataService.load(() -> CustomerHelper.getCustomerNameByID(customerID), customerComboBox::setValue);
+        DataService.load(() -> UserHelper.getUserNameByID(userID), userComboBox::setValue);
+        DataService.load(() -> ContactHelper.getContactNameByID(contactID), contactComboBox::setValue);
         titleTextField.setText(appointmentTitle);
+        // the listed appointment only holds a preview of its description, so the full text is loaded before it can be edited
         descriptionTextField.setText(appointmentDescription);
+        loadDescription();
         locationTextField.setText(appointmentLocation);
         vehicleOrCostTextField.setText(vehicleOrCost);
         financingOrTypeComboBox.setValue(financingOrType);
@@ -161,23 +161,24 @@ public class EditAppointment {
     }
 
     /**
-     * Fetches data from the database and populates the corresponding ComboBoxes
-     *
-     * @throws SQLException if there is an error retrieving data from the database
+     * Fetches data from the database in the background and populates the corresponding ComboBoxes
      */
-    public void setComboBoxes() throws SQLException {
-        ObservableList<Customer> customerList = CustomerHelper.fetchCustomers();
-        for (Customer customer : customerList) {
-            customerComboBox.getItems().add(customer.getCustomerName());
-        }
-        ObservableList<User> usersList = UserHelper.fetchUsers();
-        for (User user : usersList) {
-            userComboBox.getItems().add(user.getUsername());
-        }
-        ObservableList<Contact> contactsList = ContactHelper.fetchContacts();
-        for (Contact contact : contactsList) {
-            contactComboBox.getItems().add(contact.getContactName());
-        }
+    public void setComboBoxes() {
+        DataService.load(CustomerHelper::fetchCustomers, customerList -> {
+            for (Customer customer : customerList) {
+                customerComboBox.getItems().add(customer.getCustomerName());
+            }
+        });
+        DataService.load(UserHelper::fetchUsers, usersList -> {
+            for (User user : usersList) {
+                userComboBox.getItems().add(user.getUsername());
+            }
+        });
+        DataService.load(ContactHelper::fetchContacts, contactsList -> {
+            for (Contact contact : contactsList) {
+                contactComboBox.getItems().add(contact.getContactName());
+            }
+        });
     }
 
     /**
@@ -220,20 +221,54 @@ public class EditAppointment {
         vehicleOrCostTextField.setText("");
     }
 
+    /**
+     * Loads the full description of the appointment in the background. The description field stays disabled until it
+     * has loaded. If the load fails, the user is offered to retry it; submitting also retries it.
+     */
+    private void loadDescription() {
+        descriptionLoading = true;
+        descriptionTextField.setDisable(true);
+        DataService.load(() -> AppointmentHelper.fetchAppointmentDescription(appointmentID), description -> {
+            descriptionLoading = false;
+            descriptionLoaded = true;
+            this.appointmentDescription = description;
+            descriptionTextField.setText(description);
+            descriptionTextField.setDisable(false);
+        }, error -> {
+            descriptionLoading = false;
+            ButtonType retry = new ButtonType("Retry");
+            Alert alert = new Alert(Alert.AlertType.ERROR, "The appointment description could not be loaded: " + error.getMessage(), retry, ButtonType.CANCEL);
+            alert.showAndWait();
+            if (alert.getResult() == retry) {
+                loadDescription();
+            }
+        });
+    }
+
     /**
      * Validates and updates the database with the edited appointment.
      * Returns to Appointment Homepage after successful submission.
-     *
-     * @throws IOException  if there is an error with input/output
-     * @throws SQLException if there is an error retrieving data from the database
      */
 
-    public void submit() throws IOException, SQLException {
+    public void submit() {
         // gets Strings for getIDbyName methods in helper classes
         String customerName = (String) customerComboBox.getValue();
         String userName = (String) userComboBox.getValue();
         String contactName = (String) contactComboBox.getValue();
 
+        if (!descriptionLoaded) {
+            // saving now would overwrite the full description with the preview; a load that failed is retried
+            if (!descriptionLoading) {
+                loadDescription();
+            }
+            Alert alert = new Alert(Alert.AlertType.ERROR);
+            alert.setTitle("Error");
+            alert.setHeaderText(null);
+            alert.setContentText("The appointment description is still loading. Please try again.");
+            alert.showAndWait();
+            return;
+        }
+
         if (appointmentTypeGroup.getSelectedToggle() == null || customerComboBox.getValue() == null || userComboBox.getValue() == null || contactComboBox.getValue() == null ||
                 titleTextField.getText().isEmpty() || descriptionTextField.getText().isEmpty() || locationTextField.getText().isEmpty() ||
                 vehicleOrCostTextField.getText() == null || financingOrTypeComboBox.getValue() == null || datePicker.getValue() == null || startTimeComboBox.getValue() == null || endTimeComboBox.getValue() == null) {
@@ -251,9 +286,6 @@ public class EditAppointment {
 
         String type = ((RadioButton) appointmentTypeGroup.getSelectedToggle()).getText();
         int appointmentID = Integer.parseInt(appointmentIDTextField.getText());
-        int customerID = CustomerHelper.getCustomerIDByName(customerName);
-        int userID = UserHelper.getUserIDByName(userName);
-        int contactID = ContactHelper.getContactIDByName(contactName);
         String title = titleTextField.getText();
         String description = descriptionTextField.getText();
         String location = locationTextField.getText();
@@ -296,16 +328,6 @@ public class EditAppointment {
             return;
         }
 
-        // checks if the new appointment overlaps with existing appointments with the customer
-        if (AppointmentHelper.isAppointmentOverlap(startDateTime, endDateTime, customerID, appointmentID)) {
-            Alert alert = new Alert(Alert.AlertType.ERROR);
-            alert.setTitle("Error");
-            alert.setHeaderText(null);
-            alert.setContentText("This appointment overlaps with an existing appointment with this customer.");
-            alert.showAndWait();
-            return;
-        }
-
         // checks if appointment starts before 8AM or ends after 10PM in EST timezone
         ZonedDateTime startInEST = startDateTime.atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneId.of("America/New_York"));
         ZonedDateTime endInEST = endDateTime.atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneId.of("America/New_York"));
@@ -320,16 +342,8 @@ public class EditAppointment {
             return;
         }
 
-        if (salesRadioButton.isSelected()) {
-            if (appointmentType.equals("Sales Appointment")) {
-                SalesAppointmentHelper.deleteAppointment(appointmentID);
-            } else if (appointmentType.equals("Service Appointment")) {
-                ServiceAppointmentHelper.deleteAppointment(appointmentID);
-            }
-            AppointmentHelper.editAppointment(appointmentID, title, description, location, type, startDateTime, endDateTime, customerID, userID, contactID);
-            SalesAppointmentHelper.createSalesAppointment(appointmentID, title, description, location, vehicleOrCost, financingOrType, startDateTime, endDateTime, customerID, userID, contactID);
-
-        } else if (serviceRadioButton.isSelected()) {
+        boolean sales = salesRadioButton.isSelected();
+        if (!sales) {
             try {
                 Double.parseDouble(vehicleOrCost);
             } catch (NumberFormatException e) {
@@ -340,16 +354,54 @@ public class EditAppointment {
                 alert.showAndWait();
                 return;
             }
-            AppointmentHelper.editAppointment(appointmentID, title, description, location, type, startDateTime, endDateTime, customerID, userID, contactID);
-            if (appointmentType.equals("Sales Appointment")) {
-                SalesAppointmentHelper.deleteAppointment(appointmentID);
-            } else if (appointmentType.equals("Service Appointment")) {
-                ServiceAppointmentHelper.deleteAppointment(appointmentID);
-            }
-            AppointmentHelper.editAppointment(appointmentID, title, description, location, type, startDateTime, endDateTime, customerID, userID, contactID);
-            ServiceAppointmentHelper.createServiceAppointment(appointmentID, title, description, location, Double.parseDouble(vehicleOrCost), financingOrType, startDateTime, endDateTime, customerID, userID, contactID);
         }
-        goToAppointmentHomepage();
+        String previousType = appointmentType;
+
+        // looks up the IDs, checks for overlapping appointments with the customer and saves in the background; submit
+        // stays disabled until the save has finished so it cannot run twice
+        submitButton.setDisable(true);
+        DataService.load(() -> {
+            int customerID = CustomerHelper.getCustomerIDByName(customerName);
+            int userID = UserHelper.getUserIDByName(userName);
+            int contactID = ContactHelper.getContactIDByName(contactName);
+            if (AppointmentHelper.isAppointmentOverlap(startDateTime, endDateTime, customerID, appointmentID)) {
+                return false;
+            }
+
+            UnitOfWork work = new UnitOfWork();
+            if (previousType.equals("Sales Appointment")) {
+                SalesAppointmentHelper.deleteAppointment(work, appointmentID);
+            } else if (previousType.equals("Service Appointment")) {
+                ServiceAppointmentHelper.deleteAppointment(work, appointmentID);
+            }
+            AppointmentHelper.editAppointment(work, appointmentID, title, description, location, type, startDateTime, endDateTime, customerID, userID, contactID);
+            if (sales) {
+                SalesAppointmentHelper.createSalesAppointment(work, appointmentID, title, description, location, vehicleOrCost, financingOrType, startDateTime, endDateTime, customerID, userID, contactID);
+            } else {
+                ServiceAppointmentHelper.createServiceAppointment(work, appointmentID, title, description, location, Double.parseDouble(vehicleOrCost), financingOrType, startDateTime, endDateTime, customerID, userID, contactID);
+            }
+            work.commit();
+            return true;
+        }, saved -> {
+            if (!saved) {
+                Alert alert = new Alert(Alert.AlertType.ERROR);
+                alert.setTitle("Error");
+                alert.setHeaderText(null);
+                alert.setContentText("This appointment overlaps with an existing appointment with this customer.");
+                alert.showAndWait();
+                submitButton.setDisable(false);
+                return;
+            }
+            try {
+                goToAppointmentHomepage();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, error -> {
+            submitButton.setDisable(false);
+            Alert alert = new Alert(Alert.AlertType.ERROR, DataService.describeFailure(error), ButtonType.OK);
+            alert.showAndWait();
+        });
     }
 
     /**
@@ -1,6 +1,7 @@
 package Controllers;
 
 import Database.CustomerHelper;
+import Database.DataService;
 import Database.DivisionHelper;
 import Models.Division;
 import javafx.application.Platform;
@@ -14,7 +15,6 @@ import javafx.scene.input.KeyEvent;
 import javafx.scene.input.MouseEvent;
 import javafx.stage.Stage;
 import java.io.IOException;
-import java.sql.SQLException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -35,6 +35,7 @@ public class EditCustomer {
     private ComboBox countryComboBox;
     @FXML
     private ComboBox<Division> divisionComboBox;
+    private final DataService.Latest divisionLoad = new DataService.Latest();
     @FXML private Button submitButton;
     private int customerID;
     private String customerName;
@@ -59,20 +60,12 @@ public class EditCustomer {
         AtomicBoolean countryChangedByUser = new AtomicBoolean(false);
 
         countryComboBox.valueProperty().addListener((observable, oldValue, newValue) -> {
-            try {
-                if (countryChangedByUser.get()) {
-                    divisionComboBox.setValue(null);
-                } else {
-                    divisionSelector();
-                }
-            } catch (SQLException e) {
-                e.printStackTrace();
-            }
-            try {
+            if (countryChangedByUser.get()) {
+                divisionComboBox.setValue(null);
+            } else {
                 divisionSelector();
-            } catch (SQLException e) {
-                throw new RuntimeException(e);
             }
+            divisionSelector();
 
         });
 
@@ -127,31 +120,25 @@ public class EditCustomer {
             countryComboBox.setValue("Canada");
         }
 
-        try {
-            divisionSelector();
-        } catch (SQLException e) {
-            e.printStackTrace();
-        }
+        divisionSelector();
 
     }
 
     /**
      * Fetches the divisions for the country selected in the country combo box and populates the division combo box with
-     * the fetched divisions.
-     *
-     * @throws SQLException if there is an error while fetching the divisions from the database.
+     * the fetched divisions. A load still running for a previously selected country is dropped.
      */
-    public void divisionSelector() throws SQLException {
+    public void divisionSelector() {
         int countryID;
         if (countryComboBox.getValue().equals("United States")) {
             countryID = 1;
-            divisionComboBox.setItems(DivisionHelper.fetchDivisions(countryID));
+            divisionLoad.load(() -> DivisionHelper.fetchDivisions(countryID), divisionComboBox::setItems);
         } else if (countryComboBox.getValue().equals("United Kingdom")) {
             countryID = 2;
-            divisionComboBox.setItems(DivisionHelper.fetchDivisions(countryID));
+            divisionLoad.load(() -> DivisionHelper.fetchDivisions(countryID), divisionComboBox::setItems);
         } else if (countryComboBox.getValue().equals("Canada")) {
             countryID = 3;
-            divisionComboBox.setItems(DivisionHelper.fetchDivisions(countryID));
+            divisionLoad.load(() -> DivisionHelper.fetchDivisions(countryID), divisionComboBox::setItems);
         }
 
     }
@@ -159,11 +146,8 @@ public class EditCustomer {
     /**
      * Validates and updates the database with the edited customer.
      * Returns to Customer Homepage after successful submission.
-     *
-     * @throws IOException  if there is an error with input/output
-     * @throws SQLException if there is an error retrieving data from the database
      */
-    public void submit() throws IOException, SQLException {
+    public void submit() {
         int customerID = Integer.parseInt(idField.getText());
         String customerName = nameTextField.getText();
         String customerNumber = numberTextField.getText();
@@ -176,8 +160,21 @@ public class EditCustomer {
             alert.showAndWait();
         } else {
             int customerDivision = divisionComboBox.getValue().getDivisionID();
-            CustomerHelper.editCustomer(customerID, customerName, customerAddress, customerPostalCode, customerNumber, customerDivision);
-            goToCustomerHomepage();
+            submitButton.setDisable(true);
+            DataService.load(() -> {
+                CustomerHelper.editCustomer(customerID, customerName, customerAddress, customerPostalCode, customerNumber, customerDivision);
+                return null;
+            }, ignored -> {
+                try {
+                    goToCustomerHomepage();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }, error -> {
+                submitButton.setDisable(false);
+                Alert alert = new Alert(Alert.AlertType.ERROR, DataService.describeFailure(error), ButtonType.OK);
+                alert.showAndWait();
+            });
         }
     }
 
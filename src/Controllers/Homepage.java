@@ -1,6 +1,7 @@
 package Controllers;
 
 import Database.AppointmentHelper;
+import Database.DataService;
 import Models.Appointment;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -11,7 +12,6 @@ import javafx.scene.control.*;
 import javafx.scene.text.Text;
 import javafx.stage.Stage;
 import java.io.IOException;
-import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Locale;
@@ -35,16 +35,24 @@ public class Homepage {
     }
 
     /**
-     * Checks for any upcoming appointments within the next 15 minutes, and displays a notification showing
-     * appointment information if any are found.
-     * @throws SQLException if there is an error retrieving data from the database
+     * Checks for any of the signed-in user's appointments within the next 15 minutes, and displays a notification
+     * showing appointment information if any are found. The appointments are fetched in the background.
+     *
+     * @param userName the name of the user who signed in
      */
-    public static void appointmentNotification() throws SQLException {
+    public static void appointmentNotification(String userName) {
         LocalDateTime now = LocalDateTime.now();
         LocalDateTime fifteenMinutesLater = now.plusMinutes(15);
 
-        ObservableList<Appointment> appointments = AppointmentHelper.fetchAppointmentsByTime(now, fifteenMinutesLater);
+        DataService.load(() -> AppointmentHelper.fetchAppointmentsByUserAndTime(userName, now, fifteenMinutesLater), Homepage::showAppointmentNotification);
+    }
 
+    /**
+     * Displays a notification listing the given upcoming appointments, or stating that there are none.
+     *
+     * @param appointments the appointments starting within the next 15 minutes
+     */
+    private static void showAppointmentNotification(ObservableList<Appointment> appointments) {
         if (Locale.getDefault().getLanguage().equals("fr")) {
             if (appointments.isEmpty()) {
                 Alert alert = new Alert(Alert.AlertType.INFORMATION);
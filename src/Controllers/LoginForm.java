@@ -1,5 +1,6 @@
 package Controllers;
 
+import Database.DataService;
 import Database.UserHelper;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -15,7 +16,6 @@ import javafx.stage.Stage;
 
 import java.io.FileWriter;
 import java.io.IOException;
-import java.sql.SQLException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
@@ -75,18 +75,33 @@ public class LoginForm {
      * Attempts to sign in the user with the provided username and password. If the validation is successful,
      * the homepage is opened and the login attempt is logged. If the validation fails, an error message is displayed.
      *
-     * @throws IOException  if there is an error loading the homepage FXML file
-     * @throws SQLException if there is an error validating the user's credentials
+     * The credentials are checked in the background.
      */
-    public void signIn() throws IOException, SQLException {
-        int maxAttempts = 4;
-
+    public void signIn() {
         String username = usernameField.getText();
         String password = passwordField.getText();
-        String loginStatus;
         System.out.println(failedAttempts);
 
-        boolean isValidUser = UserHelper.validateUser(username, password);
+        DataService.load(() -> UserHelper.validateUser(username, password), isValidUser -> {
+            try {
+                completeSignIn(username, isValidUser);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Logs the login attempt and either opens the homepage or displays an error message.
+     *
+     * @param username    the username the user signed in with
+     * @param isValidUser whether the credentials were valid
+     * @throws IOException if there is an error loading the homepage FXML file or writing the log
+     */
+    private void completeSignIn(String username, boolean isValidUser) throws IOException {
+        int maxAttempts = 4;
+        String loginStatus;
+
         if (isValidUser) {
             loginStatus = "Success";
         } else {
@@ -106,7 +121,7 @@ public class LoginForm {
             newStage.setTitle("Homepage");
             newStage.setScene(scene);
             newStage.show();
-            Homepage.appointmentNotification();
+            Homepage.appointmentNotification(username);
             Stage currentStage = (Stage) locationText.getScene().getWindow();
             currentStage.close();
         } else {
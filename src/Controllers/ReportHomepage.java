@@ -1,12 +1,14 @@
 package Controllers;
 
+import Database.AppointmentCube;
 import Database.AppointmentHelper;
 import Database.ContactHelper;
-import Database.CustomerHelper;
-import Models.Appointment;
+import Database.DataService;
+import Database.ReportCache;
+import Database.ReportCounters;
 import Models.Contact;
-import Models.Customer;
 import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.property.SimpleLongProperty;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
@@ -17,24 +19,36 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.Tab;
+import javafx.scene.control.TabPane;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
+import javafx.scene.control.TableRow;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.text.Text;
 import javafx.stage.Stage;
 import javafx.util.Callback;
 import java.io.IOException;
-import java.sql.SQLException;
-import java.time.LocalDateTime;
-import java.time.format.TextStyle;
 import java.util.HashMap;
-import java.util.Locale;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
- * This class represents the controller for fetching and displaying of report data.
+ * This class represents the controller for fetching and displaying of report data. Each report has its own tab and is
+ * only computed when its tab is first shown; see ReportCache.
  */
 public class ReportHomepage {
 
     @FXML private Button backButton;
+    @FXML private TabPane reportTabPane;
+    @FXML private Tab typeTab;
+    @FXML private Tab monthTab;
+    @FXML private Tab contactTab;
+    @FXML private Tab divisionTab;
+    @FXML private Tab analysisTab;
     @FXML private TableView typeTableView;
     @FXML private TableColumn typeColumn;
     @FXML private TableColumn typeTotalColumn;
@@ -53,101 +67,112 @@ public class ReportHomepage {
     @FXML private TableView divisionTableView;
     @FXML private TableColumn divisionTitleColumn;
     @FXML private TableColumn divisionTotalColumn;
+    @FXML private ComboBox<AppointmentCube.Dimension> analysisDimensionComboBox;
+    @FXML private Button rollUpButton;
+    @FXML private Text analysisSliceText;
+    @FXML private TableView analysisTableView;
+    @FXML private TableColumn analysisMemberColumn;
+    @FXML private TableColumn analysisCountColumn;
+    @FXML private TableColumn analysisTotalCostColumn;
+    @FXML private TableColumn analysisAverageCostColumn;
+    @FXML private TableColumn analysisAverageDurationColumn;
+    private final DataService.Latest contactLoad = new DataService.Latest();
+    private final DataService.Latest analysisLoad = new DataService.Latest();
+    // the members drilled into on the analysis tab, in the order they were drilled into
+    private final LinkedHashMap<AppointmentCube.Dimension, String> analysisSlice = new LinkedHashMap<>();
+    private final Map<TableView, CompletableFuture<?>> pendingReports = new HashMap<>();
+    private boolean contactsRequested = false;
 
 
     /**
-     * Initializes the controller, sets up the tables with appointment, contact, and customer data.
-     *
-     * @throws SQLException if an SQL exception occurs
+     * Initializes the controller and sets up the report tables. Only the report on the selected tab is computed; the
+     * others are computed when their tab is shown, and a report shown again is recomputed only if the data changed.
      */
-    public void initialize() throws SQLException {
+    public void initialize() {
         setTypeTable();
         setMonthTable();
-        setContactComboBox();
         setDivisionTable();
+        setAnalysisTable();
 
-        contactComboBox.setOnAction(e -> {
-            try {
-                setContactTable();
-            } catch (SQLException ex) {
-                throw new RuntimeException(ex);
-            }
-        });
+        contactComboBox.setOnAction(e -> setContactTable());
+        reportTabPane.getSelectionModel().selectedItemProperty().addListener((observable, previous, tab) -> showTab(tab));
+        showTab(reportTabPane.getSelectionModel().getSelectedItem());
     }
 
     /**
-     * Sets up the table with appointment type data.
-     * Lambda expressions are used to define the callbacks for the cell value factories of the table columns
-     *
-     * Retrieves data from the database and populates the table with the number of appointments for each type.
+     * Computes or fetches the report shown on a tab.
      *
-     * @throws SQLException if there is an error retrieving data from the database
+     * @param tab the tab being shown
      */
-    public void setTypeTable() throws SQLException {
-        ObservableList<Appointment> appointments = AppointmentHelper.fetchAppointments();
-        HashMap<String, Integer> typeMap = new HashMap<>();
-
-        for (Appointment appointment : appointments) {
-            String type = appointment.getAppointmentType();
-            if (typeMap.containsKey(type)) {
-                typeMap.put(type, typeMap.get(type) + 1);
-            } else {
-                typeMap.put(type, 1);
-            }
+    private void showTab(Tab tab) {
+        if (tab == typeTab) {
+            showReport("type", typeTableView, ReportCounters::countAppointmentsByType);
+        } else if (tab == monthTab) {
+            showReport("month", monthTableView, ReportCounters::countAppointmentsByMonth);
+        } else if (tab == divisionTab) {
+            showReport("division", divisionTableView, ReportCounters::countCustomersByDivision);
+        } else if (tab == contactTab && !contactsRequested) {
+            contactsRequested = true;
+            setContactComboBox();
+        } else if (tab == analysisTab) {
+            loadAnalysis();
         }
+    }
 
-        ObservableList<HashMap.Entry<String, Integer>> typeDataList = FXCollections.observableArrayList(typeMap.entrySet());
+    /**
+     * Shows a report in a table. While the report is being computed the table shows a loading message; a result that
+     * is superseded by a newer request for the same table is dropped.
+     *
+     * @param reportName the name the report is cached under
+     * @param table      the table to fill
+     * @param report     computes the report
+     */
+    private void showReport(String reportName, TableView table, DataService.Query<ObservableList<Map.Entry<String, Integer>>> report) {
+        CompletableFuture<ObservableList<Map.Entry<String, Integer>>> result = ReportCache.get(reportName, report);
+        pendingReports.put(table, result);
+        if (!result.isDone()) {
+            table.setItems(FXCollections.observableArrayList());
+            table.setPlaceholder(new Label("Loading..."));
+        }
+        DataService.deliver(result, counts -> {
+            if (pendingReports.get(table) == result) {
+                table.setPlaceholder(null);
+                // the cached list is shared, and sorting a table sorts its items in place
+                table.setItems(FXCollections.observableArrayList(counts));
+            }
+        });
+    }
 
+    /**
+     * Sets up the table with appointment type data.
+     * Lambda expressions are used to define the callbacks for the cell value factories of the table columns
+     */
+    public void setTypeTable() {
         typeColumn.setCellValueFactory((Callback<TableColumn.CellDataFeatures<HashMap.Entry<String, Integer>, String>, ObservableValue<String>>)
                 cellData -> new SimpleStringProperty(cellData.getValue().getKey()));
 
         typeTotalColumn.setCellValueFactory((Callback<TableColumn.CellDataFeatures<HashMap.Entry<String, Integer>, Integer>, ObservableValue<Integer>>)
                 cellData -> new SimpleIntegerProperty(cellData.getValue().getValue()).asObject());
-
-        typeTableView.setItems(typeDataList);
     }
 
     /**
      * Sets up the table with appointment month data.
      * Lambda expressions are used to define the callbacks for the cell value factories of the table columns
-     *
-     * Retrieves data from the database and populates the table with the number of appointments for each month.
-     *
-     * @throws SQLException if there is an error retrieving data from the database
      */
-    public void setMonthTable() throws SQLException {
-        ObservableList<Appointment> appointments = AppointmentHelper.fetchAppointments();
-        HashMap<String, Integer> monthMap = new HashMap<>();
-
-        for (Appointment appointment : appointments) {
-            LocalDateTime startDateTime = appointment.getStartDateTime();
-            String month = startDateTime.getMonth().getDisplayName(TextStyle.FULL, Locale.getDefault());
-            if (monthMap.containsKey(month)) {
-                monthMap.put(month, monthMap.get(month) + 1);
-            } else {
-                monthMap.put(month, 1);
-            }
-        }
-
-        ObservableList<HashMap.Entry<String, Integer>> monthDataList = FXCollections.observableArrayList(monthMap.entrySet());
-
+    public void setMonthTable() {
         monthColumn.setCellValueFactory((Callback<TableColumn.CellDataFeatures<HashMap.Entry<String, Integer>, String>, ObservableValue<String>>)
                 cellData -> new SimpleStringProperty(cellData.getValue().getKey()));
 
         monthTotalColumn.setCellValueFactory((Callback<TableColumn.CellDataFeatures<HashMap.Entry<String, Integer>, Integer>, ObservableValue<Integer>>)
                 cellData -> new SimpleIntegerProperty(cellData.getValue().getValue()).asObject());
-
-        monthTableView.setItems(monthDataList);
     }
 
     /**
-     * Sets up the table with contact data.
-     *
-     * @throws SQLException if there is an error retrieving data from the database
+     * Sets up the table with contact data. Appointments still loading for a previously selected contact are dropped.
      */
-    public void setContactTable() throws SQLException {
+    public void setContactTable() {
         String selectedContact = (String) contactComboBox.getValue();
-        ObservableList<Appointment> appointments = AppointmentHelper.fetchAppointmentsByContact(selectedContact);
+        contactLoad.load(() -> AppointmentHelper.fetchAppointmentsByContact(selectedContact), contactTableView::setItems);
 
         contactAppointmentIDColumn.setCellValueFactory(new PropertyValueFactory<>("appointmentID"));
         contactTitleColumn.setCellValueFactory(new PropertyValueFactory<>("appointmentTitle"));
@@ -156,52 +181,108 @@ public class ReportHomepage {
         contactStartColumn.setCellValueFactory(new PropertyValueFactory<>("startDateTime"));
         contactEndColumn.setCellValueFactory(new PropertyValueFactory<>("endDateTime"));
         contactCustomerID.setCellValueFactory(new PropertyValueFactory<>("customerID"));
-
-        contactTableView.setItems(appointments);
     }
 
     /**
-     * Fetches contacts from the database and sets them in the contactComboBox.
-     *
-     * @throws SQLException if there is an error retrieving data from the database
+     * Fetches contacts from the database in the background and sets them in the contactComboBox.
      */
-    public void setContactComboBox() throws SQLException {
-        ObservableList<Contact> contactsList = ContactHelper.fetchContacts();
-        for (Contact contact : contactsList) {
-            contactComboBox.getItems().add(contact.getContactName());
-        }
+    public void setContactComboBox() {
+        DataService.load(ContactHelper::fetchContacts, contactsList -> {
+            for (Contact contact : contactsList) {
+                contactComboBox.getItems().add(contact.getContactName());
+            }
+        });
     }
 
     /**
      * Sets up the table with customer division data.
      * Lambda expressions are used to define the callbacks for the cell value factories of the table columns
-     *
-     * Retrieves data from the database and populates the table with the number of customers for each division.
-     *
-     * @throws SQLException if there is an error retrieving data from the database
      */
-    public void setDivisionTable() throws SQLException {
-        ObservableList<Customer> customers = CustomerHelper.fetchCustomers();
-        HashMap<String, Integer> divisionMap = new HashMap<>();
-
-        for (Customer customer : customers) {
-            String division = customer.getCustomerDivision();
-            if (divisionMap.containsKey(division)) {
-                divisionMap.put(division, divisionMap.get(division) + 1);
-            } else {
-                divisionMap.put(division, 1);
-            }
-        }
-
-        ObservableList<HashMap.Entry<String, Integer>> divisionDataList = FXCollections.observableArrayList(divisionMap.entrySet());
-
+    public void setDivisionTable() {
         divisionTitleColumn.setCellValueFactory((Callback<TableColumn.CellDataFeatures<HashMap.Entry<String, Integer>, String>, ObservableValue<String>>)
                 cellData -> new SimpleStringProperty(cellData.getValue().getKey()));
 
         divisionTotalColumn.setCellValueFactory((Callback<TableColumn.CellDataFeatures<HashMap.Entry<String, Integer>, Integer>, ObservableValue<Integer>>)
                 cellData -> new SimpleIntegerProperty(cellData.getValue().getValue()).asObject());
+    }
+
+    /**
+     * Sets up the analysis table. Double-clicking a row drills down into it along the hierarchy of the grouped
+     * dimension, such as from a year to its months.
+     */
+    public void setAnalysisTable() {
+        analysisDimensionComboBox.getItems().setAll(List.of(AppointmentCube.Dimension.values()));
+        analysisDimensionComboBox.setValue(AppointmentCube.Dimension.TYPE);
+        analysisDimensionComboBox.setOnAction(e -> loadAnalysis());
+
+        analysisMemberColumn.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentCube.Cell, String>, ObservableValue<String>>)
+                cellData -> new SimpleStringProperty(cellData.getValue().getMember(analysisDimensionComboBox.getValue())));
+        analysisCountColumn.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentCube.Cell, Long>, ObservableValue<Long>>)
+                cellData -> new SimpleLongProperty(cellData.getValue().getCount()).asObject());
+        analysisTotalCostColumn.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentCube.Cell, String>, ObservableValue<String>>)
+                cellData -> new SimpleStringProperty(String.format("%.2f", cellData.getValue().getTotalServiceCost())));
+        analysisAverageCostColumn.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentCube.Cell, String>, ObservableValue<String>>)
+                cellData -> new SimpleStringProperty(String.format("%.2f", cellData.getValue().getAverageServiceCost())));
+        analysisAverageDurationColumn.setCellValueFactory((Callback<TableColumn.CellDataFeatures<AppointmentCube.Cell, String>, ObservableValue<String>>)
+                cellData -> new SimpleStringProperty(String.format("%.1f", cellData.getValue().getAverageDurationMinutes())));
+
+        analysisTableView.setRowFactory(table -> {
+            TableRow<AppointmentCube.Cell> row = new TableRow<>();
+            row.setOnMouseClicked(e -> {
+                if (e.getClickCount() == 2 && !row.isEmpty()) {
+                    drillDown(row.getItem());
+                }
+            });
+            return row;
+        });
+    }
 
-        divisionTableView.setItems(divisionDataList);
+    /**
+     * Groups the appointments by the selected dimension within the members drilled into so far. The result comes from
+     * the pre-aggregated AppointmentCube; a query still running for a previous selection is dropped.
+     */
+    private void loadAnalysis() {
+        AppointmentCube.Dimension dimension = analysisDimensionComboBox.getValue();
+        Map<AppointmentCube.Dimension, String> slice = new LinkedHashMap<>(analysisSlice);
+        analysisSliceText.setText(slice.isEmpty() ? "All appointments" : String.join(" / ", slice.values()));
+        rollUpButton.setDisable(slice.isEmpty());
+        analysisLoad.load(() -> AppointmentCube.query(List.of(dimension), slice),
+                cells -> analysisTableView.setItems(FXCollections.observableArrayList(cells)));
+    }
+
+    /**
+     * Drills down into a row of the analysis table, if the grouped dimension has a finer level.
+     *
+     * @param cell the row to drill into
+     */
+    private void drillDown(AppointmentCube.Cell cell) {
+        AppointmentCube.Dimension dimension = analysisDimensionComboBox.getValue();
+        AppointmentCube.Dimension finer = dimension.finer();
+        if (finer == null) {
+            return;
+        }
+        analysisSlice.put(dimension, cell.getMember(dimension));
+        analysisDimensionComboBox.setValue(finer);
+    }
+
+    /**
+     * Rolls the analysis table up to the level above the last member drilled into.
+     */
+    public void rollUp() {
+        AppointmentCube.Dimension last = null;
+        for (AppointmentCube.Dimension dimension : analysisSlice.keySet()) {
+            last = dimension;
+        }
+        if (last == null) {
+            return;
+        }
+        analysisSlice.remove(last);
+        if (last == analysisDimensionComboBox.getValue()) {
+            // the combo box only reloads when its value changes, and the slice has changed either way
+            loadAnalysis();
+        } else {
+            analysisDimensionComboBox.setValue(last);
+        }
     }
 
     /**
@@ -0,0 +1,800 @@
+package Database;
+
+import Models.Appointment;
+import Models.SalesAppointment;
+import Models.ServiceAppointment;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntUnaryOperator;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A column-oriented copy of every appointment, for analytics that scan the whole history.
+ * <p>
+ * Each field is held in its own primitive array, indexed by row: start and end as minutes since 1970-01-01T00:00 in
+ * local time, the start month as months since year 0, the customer, user and contact IDs as ints, the type, financing
+ * option and service type as codes into a dictionary of their distinct values, and the service cost as a double.
+ * Titles, descriptions, locations and vehicles are not held. A million appointments take a few tens of megabytes and
+ * no per-row objects.
+ * <p>
+ * Queries are built from operators that read the columns directly: a RowFilter picks rows by comparing their ints and
+ * longs, and groupBy sums the rows it keeps into groups keyed by one or more RowKeys, held in a flat open-addressing
+ * table of int keys and primitive measures. Neither creates an object per row. The rows are split into ranges that are
+ * scanned in parallel on the common fork/join pool and combined. The ReportCounters month totals and the
+ * AppointmentCube are built this way.
+ * <p>
+ * The columns are loaded from the database on first use, bypassing Appointment objects, and are kept current by the
+ * AppointmentStore, which passes on every appointment written or merged into it. An edited appointment is appended as
+ * a new row and its old row is marked deleted, moving it between the ReportCounters month totals; deleted rows are
+ * compacted away once they make up half of the columns.
+ */
+public class AppointmentColumns {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int SCAN_CHUNK = 16_384;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    /**
+     * The key of a row that has no value for a RowKey, such as the service type of a sales appointment.
+     */
+    public static final int NO_VALUE = -1;
+
+    // scans share the read lock; loading, writes and compaction take the write lock
+    private static final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private static volatile boolean loaded = false;
+    // moved on under the write lock by every change to the rows
+    private static volatile long version = 0;
+
+    private static int size = 0;
+    private static int deletedCount = 0;
+    private static int[] appointmentIDs;
+    private static long[] startMinutes;
+    private static long[] endMinutes;
+    private static int[] startMonths;
+    private static int[] customerIDs;
+    private static int[] userIDs;
+    private static int[] contactIDs;
+    private static int[] typeCodes;
+    private static int[] financingCodes;
+    private static int[] serviceTypeCodes;
+    private static double[] serviceCosts;
+    private static boolean[] deleted;
+    private static final Map<Integer, Integer> rowOf = new HashMap<>();
+
+    private static final Dictionary types = new Dictionary();
+    private static final Dictionary financingOptions = new Dictionary();
+    private static final Dictionary serviceTypes = new Dictionary();
+
+    /**
+     * The type, as a dictionary code.
+     */
+    public static final RowKey TYPE = new RowKey(row -> typeCodes[row], types);
+
+    /**
+     * The month the appointment starts in, as months since year 0; see {@link #monthOf(int)}.
+     */
+    public static final RowKey MONTH = new RowKey(row -> startMonths[row], null);
+
+    /**
+     * The day the appointment starts on, as days since 1970-01-01; see {@link LocalDate#ofEpochDay(long)}.
+     */
+    public static final RowKey DAY = new RowKey(row -> (int) Math.floorDiv(startMinutes[row], MINUTES_PER_DAY), null);
+
+    public static final RowKey CONTACT = new RowKey(row -> contactIDs[row], null);
+
+    public static final RowKey USER = new RowKey(row -> userIDs[row], null);
+
+    public static final RowKey CUSTOMER = new RowKey(row -> customerIDs[row], null);
+
+    /**
+     * The financing option of a sales appointment, as a dictionary code.
+     */
+    public static final RowKey FINANCING_OPTION = new RowKey(row -> financingCodes[row], financingOptions);
+
+    /**
+     * The service type of a service appointment, as a dictionary code.
+     */
+    public static final RowKey SERVICE_TYPE = new RowKey(row -> serviceTypeCodes[row], serviceTypes);
+
+    /**
+     * A condition on a row, tested against the columns without creating any object. Build filters with the factory
+     * methods of AppointmentColumns and combine them with {@link #and(RowFilter)}.
+     */
+    @FunctionalInterface
+    public interface RowFilter {
+        boolean test(int row);
+
+        default RowFilter and(RowFilter other) {
+            return row -> test(row) && other.test(row);
+        }
+    }
+
+    /**
+     * Maps a row to the int it is grouped by: an ID, a dictionary code or a count of months or days.
+     */
+    public static final class RowKey {
+        private final IntUnaryOperator key;
+        private final Dictionary dictionary;
+
+        private RowKey(IntUnaryOperator key, Dictionary dictionary) {
+            this.key = key;
+            this.dictionary = dictionary;
+        }
+    }
+
+    /**
+     * The groups of a groupBy: the key of each group in every RowKey grouped by, and the measures of the rows in it.
+     */
+    public static class Groups {
+        private final RowKey[] rowKeys;
+        private final long version;
+        private final int size;
+        private final int[] keys;
+        private final long[] counts;
+        private final long[] serviceCounts;
+        private final double[] serviceCosts;
+        private final long[] durations;
+
+        private Groups(RowKey[] rowKeys, long version, GroupTable table) {
+            this.rowKeys = rowKeys;
+            this.version = version;
+            this.size = table.size;
+            this.keys = new int[size * rowKeys.length];
+            this.counts = new long[size];
+            this.serviceCounts = new long[size];
+            this.serviceCosts = new double[size];
+            this.durations = new long[size];
+            int group = 0;
+            for (int slot = 0; slot < table.counts.length; slot++) {
+                if (table.counts[slot] == 0) {
+                    continue;
+                }
+                System.arraycopy(table.keys, slot * rowKeys.length, keys, group * rowKeys.length, rowKeys.length);
+                counts[group] = table.counts[slot];
+                serviceCounts[group] = table.serviceCounts[slot];
+                serviceCosts[group] = table.serviceCosts[slot];
+                durations[group] = table.durations[slot];
+                group++;
+            }
+        }
+
+        /**
+         * Returns the version of the columns the groups were computed from, read under the same lock as the rows.
+         *
+         * @return the version, as returned by {@link AppointmentColumns#version()}
+         */
+        public long version() { return version; }
+
+        public int size() { return size; }
+
+        /**
+         * Returns the key of a group in one of the RowKeys grouped by.
+         *
+         * @param group  the index of the group
+         * @param column the position of the RowKey in the groupBy call
+         * @return the key, or NO_VALUE if the rows of the group have no value for it
+         */
+        public int key(int group, int column) { return keys[group * rowKeys.length + column]; }
+
+        /**
+         * Returns the value a dictionary-coded key of a group stands for, such as the name of a type.
+         *
+         * @param group  the index of the group
+         * @param column the position of the RowKey in the groupBy call
+         * @return the value, or null if the key is NO_VALUE or the RowKey is not dictionary-coded
+         */
+        public String value(int group, int column) {
+            Dictionary dictionary = rowKeys[column].dictionary;
+            return dictionary == null ? null : dictionary.valueOf(key(group, column));
+        }
+
+        public long count(int group) { return counts[group]; }
+
+        public long serviceCount(int group) { return serviceCounts[group]; }
+
+        public double serviceCost(int group) { return serviceCosts[group]; }
+
+        public long durationMinutes(int group) { return durations[group]; }
+    }
+
+    /**
+     * Returns a filter that keeps every row.
+     *
+     * @return the filter
+     */
+    public static RowFilter all() {
+        return row -> true;
+    }
+
+    /**
+     * Returns a filter that keeps the appointments starting in a window.
+     *
+     * @param start the start of the window, inclusive
+     * @param end   the end of the window, exclusive
+     * @return the filter
+     */
+    public static RowFilter startingBetween(LocalDateTime start, LocalDateTime end) {
+        long from = toMinutes(start);
+        long to = toMinutes(end);
+        return row -> startMinutes[row] >= from && startMinutes[row] < to;
+    }
+
+    /**
+     * Returns a filter that keeps the appointments of a type.
+     *
+     * @param appointmentType the type, such as "Sales Appointment"
+     * @return the filter
+     */
+    public static RowFilter ofType(String appointmentType) {
+        int code = types.codeOf(appointmentType);
+        return code == NO_VALUE ? row -> false : row -> typeCodes[row] == code;
+    }
+
+    public static RowFilter forCustomer(int customerID) {
+        return row -> customerIDs[row] == customerID;
+    }
+
+    public static RowFilter forUser(int userID) {
+        return row -> userIDs[row] == userID;
+    }
+
+    public static RowFilter forContact(int contactID) {
+        return row -> contactIDs[row] == contactID;
+    }
+
+    /**
+     * Returns a key that groups customers by a table, such as the division of each customer.
+     *
+     * @param groupOfCustomer the group of each customer, indexed by customer ID; NO_VALUE for customers in no group
+     * @return the key; customers beyond the end of the table are in no group
+     */
+    public static RowKey customerIn(int[] groupOfCustomer) {
+        return new RowKey(row -> {
+            int customerID = customerIDs[row];
+            return customerID >= 0 && customerID < groupOfCustomer.length ? groupOfCustomer[customerID] : NO_VALUE;
+        }, null);
+    }
+
+    /**
+     * Converts a MONTH key back to the month it stands for.
+     *
+     * @param key the months since year 0
+     * @return the month
+     */
+    public static YearMonth monthOf(int key) {
+        return YearMonth.of(Math.floorDiv(key, 12), Math.floorMod(key, 12) + 1);
+    }
+
+    /**
+     * Returns a number that changes whenever a row is added or removed, so results computed from the columns can be
+     * cached until then. The columns are loaded first if they have not been.
+     *
+     * @return the version of the columns
+     * @throws SQLException if the columns have to be loaded and there is an error retrieving data from the database
+     */
+    public static long version() throws SQLException {
+        ensureLoaded();
+        return version;
+    }
+
+    /**
+     * Adds or replaces an appointment. Does nothing until the columns have been loaded.
+     *
+     * @param appointment the appointment as it now is in the database
+     */
+    public static void put(Appointment appointment) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            int previousMonth = removeRow(appointment.getAppointmentID());
+            String financingOption = appointment instanceof SalesAppointment ? ((SalesAppointment) appointment).getFinancingOptions() : null;
+            String serviceType = null;
+            double serviceCost = Double.NaN;
+            if (appointment instanceof ServiceAppointment) {
+                serviceType = ((ServiceAppointment) appointment).getServiceType();
+                serviceCost = ((ServiceAppointment) appointment).getServiceCost();
+            }
+            append(appointment.getAppointmentID(), appointment.getAppointmentType(), appointment.getStartEpochSecond(), appointment.getEndEpochSecond(), appointment.getCustomerID(),
+                    appointment.getUserID(), appointment.getContactID(), financingOption, serviceType, serviceCost);
+            version++;
+            ReportCounters.appointmentMoved(previousMonth, startMonths[size - 1]);
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes an appointment.
+     *
+     * @param appointmentID the ID of the appointment
+     */
+    public static void remove(int appointmentID) {
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                return;
+            }
+            int previousMonth = removeRow(appointmentID);
+            if (previousMonth != NO_VALUE) {
+                version++;
+                ReportCounters.appointmentMoved(previousMonth, NO_VALUE);
+            }
+            compactIfSparse();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the appointments a filter keeps.
+     *
+     * @param filter the filter
+     * @return the number of appointments
+     * @throws SQLException if the columns have to be loaded and there is an error retrieving data from the database
+     */
+    public static long count(RowFilter filter) throws SQLException {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return scan(new Scan<Long>() {
+                public Long scan(int from, int to) {
+                    long count = 0;
+                    for (int row = from; row < to; row++) {
+                        if (!deleted[row] && filter.test(row)) {
+                            count++;
+                        }
+                    }
+                    return count;
+                }
+
+                public Long combine(Long left, Long right) {
+                    return left + right;
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the IDs of the appointments a filter keeps.
+     *
+     * @param filter the filter
+     * @return the appointment IDs, in no particular order
+     * @throws SQLException if the columns have to be loaded and there is an error retrieving data from the database
+     */
+    public static int[] select(RowFilter filter) throws SQLException {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return scan(new Scan<int[]>() {
+                public int[] scan(int from, int to) {
+                    int[] selected = new int[to - from];
+                    int count = 0;
+                    for (int row = from; row < to; row++) {
+                        if (!deleted[row] && filter.test(row)) {
+                            selected[count++] = appointmentIDs[row];
+                        }
+                    }
+                    return Arrays.copyOf(selected, count);
+                }
+
+                public int[] combine(int[] left, int[] right) {
+                    int[] combined = Arrays.copyOf(left, left.length + right.length);
+                    System.arraycopy(right, 0, combined, left.length, right.length);
+                    return combined;
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Groups the appointments a filter keeps by one or more keys, summing the number of appointments, the number and
+     * cost of service appointments and the duration of each group.
+     *
+     * @param filter  the filter
+     * @param rowKeys the keys to group by; with none, the result is one group over every row kept
+     * @return the groups that have at least one appointment, in no particular order
+     * @throws SQLException if the columns have to be loaded and there is an error retrieving data from the database
+     */
+    public static Groups groupBy(RowFilter filter, RowKey... rowKeys) throws SQLException {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return group(filter, rowKeys);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Seeds the ReportCounters month totals with a groupBy on MONTH. Holding the read lock keeps out writes, which
+     * report their own deltas, until the totals are seeded.
+     *
+     * @throws SQLException if the columns have to be loaded and there is an error retrieving data from the database
+     */
+    static void seedReportCounters() throws SQLException {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            ReportCounters.seedMonths(group(all(), MONTH));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Groups the rows a filter keeps. The caller holds the read lock.
+     */
+    private static Groups group(RowFilter filter, RowKey... rowKeys) {
+        GroupTable table = scan(new Scan<GroupTable>() {
+            public GroupTable scan(int from, int to) {
+                GroupTable partial = new GroupTable(rowKeys.length);
+                int[] key = new int[rowKeys.length];
+                for (int row = from; row < to; row++) {
+                    if (deleted[row] || !filter.test(row)) {
+                        continue;
+                    }
+                    for (int column = 0; column < rowKeys.length; column++) {
+                        key[column] = rowKeys[column].key.applyAsInt(row);
+                    }
+                    double serviceCost = serviceCosts[row];
+                    boolean service = !Double.isNaN(serviceCost);
+                    partial.add(key, 0, 1, service ? 1 : 0, service ? serviceCost : 0, endMinutes[row] - startMinutes[row]);
+                }
+                return partial;
+            }
+
+            public GroupTable combine(GroupTable left, GroupTable right) {
+                left.addAll(right);
+                return left;
+            }
+        });
+        return new Groups(rowKeys, version, table);
+    }
+
+    private static long toMinutes(LocalDateTime dateTime) {
+        return Math.floorDiv(Appointment.toEpochSecond(dateTime), 60);
+    }
+
+    private static void ensureLoaded() throws SQLException {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                load();
+                version++;
+                loaded = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void load() throws SQLException {
+        clear(INITIAL_CAPACITY);
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT a.Appointment_ID, a.Type, a.Start, a.End, "
+                     + "a.Customer_ID, a.User_ID, a.Contact_ID, sa.Appointment_ID AS Sales_ID, sa.Financing_Option, "
+                     + "sv.Appointment_ID AS Service_ID, sv.Service_Cost, sv.Service_Type FROM appointments a "
+                     + "LEFT JOIN sales_appointments sa ON a.Appointment_ID = sa.Appointment_ID "
+                     + "LEFT JOIN service_appointments sv ON a.Appointment_ID = sv.Appointment_ID")) {
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    String appointmentType = resultSet.getString("Type");
+                    String financingOption = null;
+                    String serviceType = null;
+                    double serviceCost = Double.NaN;
+                    // rows whose subtype row is missing are skipped, as AppointmentHelper does
+                    if (appointmentType.equals("Service Appointment")) {
+                        resultSet.getInt("Service_ID");
+                        if (resultSet.wasNull()) {
+                            continue;
+                        }
+                        serviceType = resultSet.getString("Service_Type");
+                        serviceCost = resultSet.getDouble("Service_Cost");
+                    } else if (appointmentType.equals("Sales Appointment")) {
+                        resultSet.getInt("Sales_ID");
+                        if (resultSet.wasNull()) {
+                            continue;
+                        }
+                        financingOption = resultSet.getString("Financing_Option");
+                    } else {
+                        continue;
+                    }
+                    append(resultSet.getInt("Appointment_ID"), appointmentType,
+                            AppointmentHelper.toLocalEpochSecond(resultSet.getTimestamp("Start")),
+                            AppointmentHelper.toLocalEpochSecond(resultSet.getTimestamp("End")),
+                            resultSet.getInt("Customer_ID"), resultSet.getInt("User_ID"), resultSet.getInt("Contact_ID"),
+                            financingOption, serviceType, serviceCost);
+                }
+            }
+        }
+    }
+
+    private static void clear(int capacity) {
+        size = 0;
+        deletedCount = 0;
+        appointmentIDs = new int[capacity];
+        startMinutes = new long[capacity];
+        endMinutes = new long[capacity];
+        startMonths = new int[capacity];
+        customerIDs = new int[capacity];
+        userIDs = new int[capacity];
+        contactIDs = new int[capacity];
+        typeCodes = new int[capacity];
+        financingCodes = new int[capacity];
+        serviceTypeCodes = new int[capacity];
+        serviceCosts = new double[capacity];
+        deleted = new boolean[capacity];
+        rowOf.clear();
+    }
+
+    private static void append(int appointmentID, String appointmentType, long startEpochSecond, long endEpochSecond,
+                               int customerID, int userID, int contactID, String financingOption,
+                               String serviceType, double serviceCost) {
+        if (size == appointmentIDs.length) {
+            resize(size * 2);
+        }
+        int row = size++;
+        appointmentIDs[row] = appointmentID;
+        startMinutes[row] = Math.floorDiv(startEpochSecond, 60);
+        endMinutes[row] = Math.floorDiv(endEpochSecond, 60);
+        LocalDate startDate = LocalDate.ofEpochDay(Math.floorDiv(startEpochSecond, 24 * 60 * 60));
+        startMonths[row] = startDate.getYear() * 12 + startDate.getMonthValue() - 1;
+        customerIDs[row] = customerID;
+        userIDs[row] = userID;
+        contactIDs[row] = contactID;
+        typeCodes[row] = types.encode(appointmentType);
+        financingCodes[row] = financingOptions.encode(financingOption);
+        serviceTypeCodes[row] = serviceTypes.encode(serviceType);
+        serviceCosts[row] = serviceCost;
+        deleted[row] = false;
+        rowOf.put(appointmentID, row);
+    }
+
+    /**
+     * Marks the row of an appointment deleted.
+     *
+     * @return the month key of the row, or NO_VALUE if the appointment had no row
+     */
+    private static int removeRow(int appointmentID) {
+        Integer row = rowOf.remove(appointmentID);
+        if (row == null) {
+            return NO_VALUE;
+        }
+        deleted[row] = true;
+        deletedCount++;
+        return startMonths[row];
+    }
+
+    private static void resize(int capacity) {
+        appointmentIDs = Arrays.copyOf(appointmentIDs, capacity);
+        startMinutes = Arrays.copyOf(startMinutes, capacity);
+        endMinutes = Arrays.copyOf(endMinutes, capacity);
+        startMonths = Arrays.copyOf(startMonths, capacity);
+        customerIDs = Arrays.copyOf(customerIDs, capacity);
+        userIDs = Arrays.copyOf(userIDs, capacity);
+        contactIDs = Arrays.copyOf(contactIDs, capacity);
+        typeCodes = Arrays.copyOf(typeCodes, capacity);
+        financingCodes = Arrays.copyOf(financingCodes, capacity);
+        serviceTypeCodes = Arrays.copyOf(serviceTypeCodes, capacity);
+        serviceCosts = Arrays.copyOf(serviceCosts, capacity);
+        deleted = Arrays.copyOf(deleted, capacity);
+    }
+
+    /**
+     * Compacts the columns once deleted rows, left behind by deletes and by edits, make up half of them.
+     */
+    private static void compactIfSparse() {
+        if (deletedCount > INITIAL_CAPACITY && deletedCount > size / 2) {
+            compact();
+        }
+    }
+
+    /**
+     * Moves the live rows to the front of the columns and shrinks them.
+     */
+    private static void compact() {
+        int live = 0;
+        for (int row = 0; row < size; row++) {
+            if (deleted[row]) {
+                continue;
+            }
+            appointmentIDs[live] = appointmentIDs[row];
+            startMinutes[live] = startMinutes[row];
+            endMinutes[live] = endMinutes[row];
+            startMonths[live] = startMonths[row];
+            customerIDs[live] = customerIDs[row];
+            userIDs[live] = userIDs[row];
+            contactIDs[live] = contactIDs[row];
+            typeCodes[live] = typeCodes[row];
+            financingCodes[live] = financingCodes[row];
+            serviceTypeCodes[live] = serviceTypeCodes[row];
+            serviceCosts[live] = serviceCosts[row];
+            deleted[live] = false;
+            rowOf.put(appointmentIDs[live], live);
+            live++;
+        }
+        size = live;
+        deletedCount = 0;
+        resize(Math.max(INITIAL_CAPACITY, live + live / 2));
+    }
+
+    /**
+     * Maps the distinct values of a column to dense codes. Null encodes as NO_VALUE.
+     */
+    private static class Dictionary {
+        private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        private synchronized int encode(String value) {
+            if (value == null) {
+                return NO_VALUE;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                values.add(value);
+                codes.put(value, code);
+            }
+            return code;
+        }
+
+        private int codeOf(String value) {
+            return value == null ? NO_VALUE : codes.getOrDefault(value, NO_VALUE);
+        }
+
+        private synchronized String valueOf(int code) {
+            return code == NO_VALUE ? null : values.get(code);
+        }
+    }
+
+    /**
+     * An open-addressing hash table from the keys of a group to its measures. The keys of every slot are held in one
+     * flat int array, and a slot with a count of 0 is empty, so adding a row allocates nothing unless the table grows.
+     */
+    private static class GroupTable {
+        private final int width;
+        private int size = 0;
+        private int[] keys;
+        private long[] counts;
+        private long[] serviceCounts;
+        private double[] serviceCosts;
+        private long[] durations;
+
+        private GroupTable(int width) {
+            this.width = width;
+            allocate(16);
+        }
+
+        private void allocate(int capacity) {
+            keys = new int[capacity * width];
+            counts = new long[capacity];
+            serviceCounts = new long[capacity];
+            serviceCosts = new double[capacity];
+            durations = new long[capacity];
+        }
+
+        /**
+         * Adds measures to the group with the keys at an offset of an array, creating the group if it is new.
+         */
+        private void add(int[] key, int offset, long count, long serviceCount, double serviceCost, long duration) {
+            if ((size + 1) * 2 > counts.length) {
+                grow();
+            }
+            int mask = counts.length - 1;
+            int slot = hash(key, offset) & mask;
+            while (counts[slot] != 0 && !Arrays.equals(keys, slot * width, slot * width + width, key, offset, offset + width)) {
+                slot = (slot + 1) & mask;
+            }
+            if (counts[slot] == 0) {
+                System.arraycopy(key, offset, keys, slot * width, width);
+                size++;
+            }
+            counts[slot] += count;
+            serviceCounts[slot] += serviceCount;
+            serviceCosts[slot] += serviceCost;
+            durations[slot] += duration;
+        }
+
+        private void addAll(GroupTable other) {
+            addAll(other.keys, other.counts, other.serviceCounts, other.serviceCosts, other.durations);
+        }
+
+        private void addAll(int[] keys, long[] counts, long[] serviceCounts, double[] serviceCosts, long[] durations) {
+            for (int slot = 0; slot < counts.length; slot++) {
+                if (counts[slot] != 0) {
+                    add(keys, slot * width, counts[slot], serviceCounts[slot], serviceCosts[slot], durations[slot]);
+                }
+            }
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            long[] oldCounts = counts;
+            long[] oldServiceCounts = serviceCounts;
+            double[] oldServiceCosts = serviceCosts;
+            long[] oldDurations = durations;
+            allocate(counts.length * 2);
+            size = 0;
+            addAll(oldKeys, oldCounts, oldServiceCounts, oldServiceCosts, oldDurations);
+        }
+
+        private int hash(int[] key, int offset) {
+            int hash = 1;
+            for (int i = offset; i < offset + width; i++) {
+                hash = 31 * hash + key[i];
+            }
+            hash *= 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
+    }
+
+    /**
+     * A scan over a range of rows whose partial results are combined into one.
+     */
+    private interface Scan<R> {
+        R scan(int from, int to);
+
+        R combine(R left, R right);
+    }
+
+    private static <R> R scan(Scan<R> scan) {
+        if (size <= SCAN_CHUNK) {
+            return scan.scan(0, size);
+        }
+        return ForkJoinPool.commonPool().invoke(new ScanTask<>(scan, 0, size));
+    }
+
+    /**
+     * Splits a scan in halves until the ranges are small enough to scan directly.
+     */
+    private static class ScanTask<R> extends RecursiveTask<R> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Scan<R> scan;
+        private final int from;
+        private final int to;
+
+        private ScanTask(Scan<R> scan, int from, int to) {
+            this.scan = scan;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from <= SCAN_CHUNK) {
+                return scan.scan(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask<R> left = new ScanTask<>(scan, from, middle);
+            left.fork();
+            R right = new ScanTask<>(scan, middle, to).compute();
+            return scan.combine(left.join(), right);
+        }
+    }
+}
@@ -0,0 +1,401 @@
+package Database;
+
+import Models.Country;
+import Models.Division;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A pre-aggregated cube over the appointments, for reports that slice them by any combination of dimensions.
+ * <p>
+ * The base of the cube holds one cell per distinct combination of every dimension, with the number of appointments,
+ * the number and total cost of service appointments and the total duration. A query groups by some dimensions and
+ * optionally fixes others to one member. It is answered from the smallest grouping already aggregated that covers the
+ * dimensions it needs, and the grouping it needs is kept, so slicing back and forth between the same levels only
+ * reads pre-aggregated cells. Rolling up is a query with fewer dimensions; drilling down is a query with a finer
+ * dimension, sliced to the cell being drilled into.
+ * <p>
+ * The cube is built by one parallel groupBy over the AppointmentColumns, which keeps to primitive keys. It is tagged
+ * with the column version the groupBy read under the same lock as the rows, and with the CustomerNameIndex version read
+ * before the customer divisions, so it is never tagged newer than its data. It is rebuilt on the next query after
+ * either version moves on, that is after any appointment or customer has been written.
+ */
+public class AppointmentCube {
+
+    /**
+     * The label of the member an appointment has in a dimension that does not apply to it, such as the service type
+     * of a sales appointment.
+     */
+    public static final String NONE = "None";
+
+    private static final Dimension[] DIMENSIONS = Dimension.values();
+    private static final Object buildLock = new Object();
+    private static volatile Snapshot snapshot = null;
+
+    /**
+     * The dimensions appointments can be grouped and sliced by. Time members are labelled so that they sort in
+     * calendar order: 2024, 2024-03, 2024-W09 and 2024-03-05.
+     */
+    public enum Dimension {
+        TYPE, YEAR, MONTH, WEEK, DAY, CONTACT, USER, COUNTRY, DIVISION, FINANCING_OPTION, SERVICE_TYPE;
+
+        /**
+         * Returns the next level down in the hierarchy this dimension belongs to.
+         *
+         * @return the finer dimension, or null if this dimension is the finest level or not part of a hierarchy
+         */
+        public Dimension finer() {
+            switch (this) {
+                case YEAR: return MONTH;
+                case MONTH:
+                case WEEK: return DAY;
+                case COUNTRY: return DIVISION;
+                default: return null;
+            }
+        }
+    }
+
+    /**
+     * One cell of a query result: the members it groups by and the measures of the appointments in it.
+     */
+    public static class Cell {
+        private final Map<Dimension, String> members;
+        private final long count;
+        private final long serviceCount;
+        private final double totalServiceCost;
+        private final long totalDurationMinutes;
+
+        private Cell(Map<Dimension, String> members, Measures measures) {
+            this.members = Collections.unmodifiableMap(members);
+            this.count = measures.count;
+            this.serviceCount = measures.serviceCount;
+            this.totalServiceCost = measures.serviceCost;
+            this.totalDurationMinutes = measures.durationMinutes;
+        }
+
+        /**
+         * Returns the member of this cell in a dimension of the query.
+         *
+         * @param dimension a dimension the query grouped by
+         * @return the member label, or null if the query did not group by that dimension
+         */
+        public String getMember(Dimension dimension) { return members.get(dimension); }
+
+        /**
+         * Returns the members of this cell by dimension.
+         *
+         * @return an unmodifiable map from dimension to member label
+         */
+        public Map<Dimension, String> getMembers() { return members; }
+
+        public long getCount() { return count; }
+
+        public long getServiceCount() { return serviceCount; }
+
+        public double getTotalServiceCost() { return totalServiceCost; }
+
+        /**
+         * Returns the average cost of the service appointments in this cell. Sales appointments have no cost and are
+         * left out of the average.
+         *
+         * @return the average service cost, or 0 if the cell has no service appointments
+         */
+        public double getAverageServiceCost() { return serviceCount == 0 ? 0 : totalServiceCost / serviceCount; }
+
+        public long getTotalDurationMinutes() { return totalDurationMinutes; }
+
+        public double getAverageDurationMinutes() { return count == 0 ? 0 : (double) totalDurationMinutes / count; }
+    }
+
+    /**
+     * Groups appointments by some dimensions, keeping only those with the given members in the sliced dimensions.
+     *
+     * @param groupBy the dimensions to group by; with none, the result is a single cell over every appointment
+     * @param slice   the member each sliced dimension is fixed to; may be empty
+     * @return the cells of the result, ordered by their members
+     * @throws SQLException if the cube has to be rebuilt and there is an error retrieving data from the database
+     */
+    public static List<Cell> query(Collection<Dimension> groupBy, Map<Dimension, String> slice) throws SQLException {
+        Snapshot current = current();
+        Set<Dimension> grouped = groupBy.isEmpty() ? EnumSet.noneOf(Dimension.class) : EnumSet.copyOf(groupBy);
+        Set<Dimension> needed = EnumSet.copyOf(grouped);
+        needed.addAll(slice.keySet());
+        Cuboid source = current.cuboid(needed);
+
+        Cuboid result = slice.isEmpty() ? source : source.rollUp(grouped, slice);
+        return result.cells();
+    }
+
+    /**
+     * Breaks a cell of a previous query down by a finer dimension.
+     *
+     * @param slice     the slice of the query the cell came from
+     * @param cell      the cell to drill into
+     * @param dimension the dimension to break the cell down by, such as {@link Dimension#finer()} of one it groups by
+     * @return the cells within the given cell, ordered by their members
+     * @throws SQLException if the cube has to be rebuilt and there is an error retrieving data from the database
+     */
+    public static List<Cell> drillDown(Map<Dimension, String> slice, Cell cell, Dimension dimension) throws SQLException {
+        Map<Dimension, String> within = new EnumMap<>(Dimension.class);
+        within.putAll(slice);
+        within.putAll(cell.getMembers());
+        return query(List.of(dimension), within);
+    }
+
+    private static Snapshot current() throws SQLException {
+        // merges in writes no change feed reported once the store is older than its refresh interval
+        AppointmentStore.refresh();
+        Snapshot current = snapshot;
+        if (current != null && current.isCurrent()) {
+            return current;
+        }
+        synchronized (buildLock) {
+            current = snapshot;
+            if (current == null || !current.isCurrent()) {
+                current = build();
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    private static Snapshot build() throws SQLException {
+        long customersVersion = CustomerNameIndex.version();
+        // the columns are grouped on their int keys in one parallel pass that creates nothing per appointment; the
+        // keys are turned into member labels afterwards, once per group
+        AppointmentColumns.Groups groups = AppointmentColumns.groupBy(AppointmentColumns.all(),
+                AppointmentColumns.TYPE, AppointmentColumns.DAY, AppointmentColumns.CONTACT, AppointmentColumns.USER,
+                AppointmentColumns.customerIn(CustomerNameIndex.divisionsByCustomer()),
+                AppointmentColumns.FINANCING_OPTION, AppointmentColumns.SERVICE_TYPE);
+
+        Map<Integer, String[]> timeMembers = new HashMap<>();
+        Map<Integer, String> contactNames = new HashMap<>();
+        Map<Integer, String> userNames = new HashMap<>();
+        Map<Integer, String> divisionNames = new HashMap<>();
+        Map<Integer, String> countryNames = new HashMap<>();
+        Map<List<String>, Measures> cells = new HashMap<>();
+        for (int group = 0; group < groups.size(); group++) {
+            String[] members = new String[DIMENSIONS.length];
+            members[Dimension.TYPE.ordinal()] = orNone(groups.value(group, 0));
+            String[] time = timeMembers.computeIfAbsent(groups.key(group, 1), AppointmentCube::timeMembers);
+            members[Dimension.YEAR.ordinal()] = time[0];
+            members[Dimension.MONTH.ordinal()] = time[1];
+            members[Dimension.WEEK.ordinal()] = time[2];
+            members[Dimension.DAY.ordinal()] = time[3];
+            int contactID = groups.key(group, 2);
+            int userID = groups.key(group, 3);
+            int divisionID = groups.key(group, 4);
+            members[Dimension.CONTACT.ordinal()] = name(contactNames, contactID, () -> ContactHelper.getContactNameByID(contactID));
+            members[Dimension.USER.ordinal()] = name(userNames, userID, () -> UserHelper.getUserNameByID(userID));
+            if (divisionID == AppointmentColumns.NO_VALUE) {
+                members[Dimension.DIVISION.ordinal()] = NONE;
+                members[Dimension.COUNTRY.ordinal()] = NONE;
+            } else {
+                members[Dimension.DIVISION.ordinal()] = name(divisionNames, divisionID, () -> {
+                    Division division = GeographyCache.getDivision(divisionID);
+                    return division == null ? NONE : division.getDivisionName();
+                });
+                members[Dimension.COUNTRY.ordinal()] = name(countryNames, divisionID, () -> {
+                    Country country = GeographyCache.getCountryOfDivision(divisionID);
+                    return country == null ? NONE : country.getCountryName();
+                });
+            }
+            members[Dimension.FINANCING_OPTION.ordinal()] = orNone(groups.value(group, 5));
+            members[Dimension.SERVICE_TYPE.ordinal()] = orNone(groups.value(group, 6));
+            cells.computeIfAbsent(Arrays.asList(members), key -> new Measures()).add(groups, group);
+        }
+        return new Snapshot(groups.version(), customersVersion, new Cuboid(EnumSet.allOf(Dimension.class), cells));
+    }
+
+    /**
+     * Returns the year, month, week and day members of a day.
+     */
+    private static String[] timeMembers(int epochDay) {
+        LocalDate day = LocalDate.ofEpochDay(epochDay);
+        return new String[] {
+                String.valueOf(day.getYear()),
+                String.format("%d-%02d", day.getYear(), day.getMonthValue()),
+                String.format("%d-W%02d", day.get(IsoFields.WEEK_BASED_YEAR), day.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR)),
+                day.toString()
+        };
+    }
+
+    /**
+     * Returns the name of an ID, looking it up the first time the ID is seen during a build.
+     */
+    private static String name(Map<Integer, String> names, int id, DataService.Query<String> lookup) throws SQLException {
+        String name = names.get(id);
+        if (name == null) {
+            name = orNone(lookup.call());
+            names.put(id, name);
+        }
+        return name;
+    }
+
+    private static String orNone(String member) {
+        return member == null || member.isBlank() ? NONE : member;
+    }
+
+    /**
+     * The cube as built for one version of the columns and of the customer divisions: the base cuboid and every
+     * grouping aggregated from it so far.
+     */
+    private static class Snapshot {
+        private final long columnsVersion;
+        private final long customersVersion;
+        private final Cuboid base;
+        private final Map<Set<Dimension>, Cuboid> cuboids = new ConcurrentHashMap<>();
+
+        private Snapshot(long columnsVersion, long customersVersion, Cuboid base) {
+            this.columnsVersion = columnsVersion;
+            this.customersVersion = customersVersion;
+            this.base = base;
+        }
+
+        private boolean isCurrent() throws SQLException {
+            return columnsVersion == AppointmentColumns.version() && customersVersion == CustomerNameIndex.version();
+        }
+
+        /**
+         * Returns the cuboid grouped by exactly the given dimensions, aggregating it from the smallest cuboid kept so
+         * far that groups by all of them.
+         */
+        private Cuboid cuboid(Set<Dimension> dimensions) {
+            Cuboid cuboid = cuboids.get(dimensions);
+            if (cuboid != null) {
+                return cuboid;
+            }
+            Cuboid source = base;
+            for (Cuboid candidate : cuboids.values()) {
+                if (candidate.dimensions.containsAll(dimensions) && candidate.size() < source.size()) {
+                    source = candidate;
+                }
+            }
+            cuboid = source.rollUp(dimensions, Collections.emptyMap());
+            Cuboid raced = cuboids.putIfAbsent(EnumSet.copyOf(dimensions), cuboid);
+            return raced == null ? cuboid : raced;
+        }
+    }
+
+    /**
+     * The cells of the cube grouped by a set of dimensions. Each key lists the members in the order of the dimensions.
+     */
+    private static class Cuboid {
+        private final Set<Dimension> dimensions;
+        private final Map<List<String>, Measures> cells;
+
+        private Cuboid(Set<Dimension> dimensions, Map<List<String>, Measures> cells) {
+            this.dimensions = dimensions;
+            this.cells = cells;
+        }
+
+        private int size() {
+            return cells.size();
+        }
+
+        /**
+         * Aggregates this cuboid to fewer dimensions, keeping only the cells with the given members in the sliced
+         * dimensions. Every grouped and sliced dimension must be one of this cuboid's.
+         */
+        private Cuboid rollUp(Set<Dimension> grouped, Map<Dimension, String> slice) {
+            List<Dimension> own = new ArrayList<>(dimensions);
+            int[] kept = new int[grouped.size()];
+            int next = 0;
+            for (Dimension dimension : grouped) {
+                kept[next++] = own.indexOf(dimension);
+            }
+            int[] slicedAt = new int[slice.size()];
+            String[] slicedTo = new String[slice.size()];
+            next = 0;
+            for (Map.Entry<Dimension, String> entry : slice.entrySet()) {
+                slicedAt[next] = own.indexOf(entry.getKey());
+                slicedTo[next++] = entry.getValue();
+            }
+
+            Map<List<String>, Measures> rolled = new HashMap<>();
+            for (Map.Entry<List<String>, Measures> cell : cells.entrySet()) {
+                List<String> members = cell.getKey();
+                if (!matches(members, slicedAt, slicedTo)) {
+                    continue;
+                }
+                String[] key = new String[kept.length];
+                for (int i = 0; i < kept.length; i++) {
+                    key[i] = members.get(kept[i]);
+                }
+                rolled.computeIfAbsent(Arrays.asList(key), k -> new Measures()).add(cell.getValue());
+            }
+            return new Cuboid(grouped.isEmpty() ? EnumSet.noneOf(Dimension.class) : EnumSet.copyOf(grouped), rolled);
+        }
+
+        private static boolean matches(List<String> members, int[] slicedAt, String[] slicedTo) {
+            for (int i = 0; i < slicedAt.length; i++) {
+                if (!slicedTo[i].equals(members.get(slicedAt[i]))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private List<Cell> cells() {
+            List<List<String>> keys = new ArrayList<>(cells.keySet());
+            keys.sort(Cuboid::compareMembers);
+            List<Cell> result = new ArrayList<>(keys.size());
+            for (List<String> key : keys) {
+                Map<Dimension, String> members = new EnumMap<>(Dimension.class);
+                int i = 0;
+                for (Dimension dimension : dimensions) {
+                    members.put(dimension, key.get(i++));
+                }
+                result.add(new Cell(members, cells.get(key)));
+            }
+            return result;
+        }
+
+        private static int compareMembers(List<String> first, List<String> second) {
+            for (int i = 0; i < first.size(); i++) {
+                int compared = first.get(i).compareTo(second.get(i));
+                if (compared != 0) {
+                    return compared;
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * The measures of one cell. Only changed while the cuboid holding it is being aggregated.
+     */
+    private static class Measures {
+        private long count;
+        private long serviceCount;
+        private double serviceCost;
+        private long durationMinutes;
+
+        private void add(AppointmentColumns.Groups groups, int group) {
+            count += groups.count(group);
+            serviceCount += groups.serviceCount(group);
+            serviceCost += groups.serviceCost(group);
+            durationMinutes += groups.durationMinutes(group);
+        }
+
+        private void add(Measures other) {
+            count += other.count;
+            serviceCount += other.serviceCount;
+            serviceCost += other.serviceCost;
+            durationMinutes += other.durationMinutes;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package Database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Loads the full description of an appointment on demand.
+ * <p>
+ * Descriptions are free text and can be far longer than any other column of an appointment, so the listing queries
+ * only read a short preview of them (see {@link #preview(String)}) and the AppointmentStore holds that preview. The
+ * full text is read here, one appointment at a time, when a form needs it. The most recently used descriptions are
+ * kept in a bounded cache, which the write paths and the change reads also fill, so reopening an appointment that was
+ * just saved or synced does not reach the database.
+ */
+public class AppointmentDescriptions {
+
+    /**
+     * Number of characters of a description kept in the preview. Matches the preview expression the listing queries
+     * compute in SQL.
+     */
+    static final int PREVIEW_LENGTH = 60;
+
+    private static final int MAX_SIZE = 1_000;
+
+    private static final Map<Integer, String> descriptions = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+
+    /**
+     * Returns the SQL expression that computes the preview of the Description column of the appointments table
+     * aliased as a.
+     *
+     * @return the preview expression
+     */
+    static String previewColumn() {
+        return "CASE WHEN CHAR_LENGTH(a.Description) > " + PREVIEW_LENGTH + " THEN CONCAT(LEFT(a.Description, "
+                + PREVIEW_LENGTH + "), '...') ELSE a.Description END";
+    }
+
+    /**
+     * Shortens a description to the preview held by listed appointments, the same way previewColumn does in SQL.
+     *
+     * @param description the full description
+     * @return the description itself if it is short enough, otherwise its first PREVIEW_LENGTH characters followed by
+     * "..."
+     */
+    public static String preview(String description) {
+        if (description == null || description.codePointCount(0, description.length()) <= PREVIEW_LENGTH) {
+            return description;
+        }
+        return description.substring(0, description.offsetByCodePoints(0, PREVIEW_LENGTH)) + "...";
+    }
+
+    /**
+     * Retrieves the full description of an appointment.
+     *
+     * @param appointmentID the ID of the appointment
+     * @return the description, or null if there is no such appointment
+     * @throws SQLException if there is an error retrieving data from the database
+     */
+    public static String fetch(int appointmentID) throws SQLException {
+        synchronized (AppointmentDescriptions.class) {
+            String description = descriptions.get(appointmentID);
+            if (description != null) {
+                return description;
+            }
+        }
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT Description FROM appointments WHERE Appointment_ID = ?")) {
+            statement.setInt(1, appointmentID);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return null;
+                }
+                String description = resultSet.getString("Description");
+                synchronized (AppointmentDescriptions.class) {
+                    // a save that committed while this read was running has already cached the newer text
+                    String saved = descriptions.putIfAbsent(appointmentID, description);
+                    return saved != null ? saved : description;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the cached description of an appointment, falling back to a given value if it is not cached.
+     *
+     * @param appointmentID the ID of the appointment
+     * @param fallback      the value to return if the description is not cached
+     * @return the full description, or the fallback
+     */
+    static synchronized String cachedOrElse(int appointmentID, String fallback) {
+        String description = descriptions.get(appointmentID);
+        return description != null ? description : fallback;
+    }
+
+    /**
+     * Caches the full description of an appointment that was written or read.
+     *
+     * @param appointmentID the ID of the appointment
+     * @param description   the full description
+     */
+    static synchronized void put(int appointmentID, String description) {
+        if (description != null) {
+            descriptions.put(appointmentID, description);
+        }
+    }
+
+    /**
+     * Drops the description of a deleted appointment.
+     *
+     * @param appointmentID the ID of the appointment
+     */
+    static synchronized void remove(int appointmentID) {
+        descriptions.remove(appointmentID);
+    }
+}
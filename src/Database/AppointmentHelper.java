@@ -6,307 +6,258 @@ import Models.ServiceAppointment;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.DayOfWeek;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.temporal.TemporalAdjusters;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 /**
  * This class provides helper methods to interact with the appointments table in the database
  */
 public class AppointmentHelper {
 
+    private static final IdAllocator appointmentIDs = new IdAllocator("appointments", "Appointment_ID", 20);
+    private static final int ID_BATCH_SIZE = 50;
+
     /**
-     * Retrieves all appointments from the database.
-     *
-     * @return an observable list of appointments
-     * @throws SQLException if there is an error retrieving data from the database
+     * Columns read by every appointment fetch. The sales and service subtype columns are loaded in the same pass with
+     * LEFT JOINs, so a fetch costs one round trip no matter how many rows it returns. The audit columns are not read.
      */
-    public static ObservableList<Appointment> fetchAppointments() throws SQLException {
-        ObservableList<Appointment> appointmentList = FXCollections.observableArrayList();
-
-        PreparedStatement statement = JDBC.getConnection().prepareStatement("SELECT * FROM appointments ");
+    private static final String APPOINTMENT_COLUMNS = "SELECT a.Appointment_ID, a.Title, a.Location, a.Type, a.Start, a.End, "
+            + "a.Customer_ID, a.User_ID, a.Contact_ID, sa.Appointment_ID AS Sales_ID, sa.Vehicle, sa.Financing_Option, "
+            + "sv.Appointment_ID AS Service_ID, sv.Service_Cost, sv.Service_Type, ";
 
-        ResultSet resultSet = statement.executeQuery();
+    private static final String FROM_APPOINTMENTS = " FROM appointments a "
+            + "LEFT JOIN sales_appointments sa ON a.Appointment_ID = sa.Appointment_ID "
+            + "LEFT JOIN service_appointments sv ON a.Appointment_ID = sv.Appointment_ID ";
 
-        while (resultSet.next()) {
-            int appointmentID = resultSet.getInt("Appointment_ID");
-            String appointmentTitle = resultSet.getString("Title");
-            String appointmentDescription = resultSet.getString("Description");
-            String appointmentLocation = resultSet.getString("Location");
-            String appointmentType = resultSet.getString("Type");
-            LocalDateTime startDateTime = resultSet.getTimestamp("Start").toLocalDateTime();
-            LocalDateTime endDateTime = resultSet.getTimestamp("End").toLocalDateTime();
-            int customerID = resultSet.getInt("Customer_ID");
-            int userID = resultSet.getInt("User_ID");
-            int contactID = resultSet.getInt("Contact_ID");
-
-            Appointment appointment;
+    /**
+     * Query for listing appointments. Only a preview of the description is read; the full text is loaded on demand
+     * through AppointmentDescriptions.
+     */
+    private static final String SELECT_APPOINTMENTS = APPOINTMENT_COLUMNS + AppointmentDescriptions.previewColumn()
+            + " AS Description" + FROM_APPOINTMENTS;
 
-            if (appointmentType.equals("Service Appointment")) {
-                PreparedStatement serviceStatement = JDBC.getConnection().prepareStatement("SELECT Service_Cost, Service_Type FROM service_appointments WHERE Appointment_ID = ?");
-                serviceStatement.setInt(1, appointmentID);
-                ResultSet serviceResult = serviceStatement.executeQuery();
-                if (serviceResult.next()) {
-                    double serviceCost = serviceResult.getDouble("Service_Cost");
-                    String serviceType = serviceResult.getString("Service_Type");
-                    appointment = new ServiceAppointment(appointmentID, appointmentTitle, appointmentDescription, appointmentLocation, appointmentType, serviceCost, serviceType, startDateTime, endDateTime, customerID, userID, contactID);
-                    appointmentList.add(appointment);
-                }
-            } else if (appointmentType.equals("Sales Appointment")) {
-                PreparedStatement salesStatement = JDBC.getConnection().prepareStatement("SELECT Vehicle, Financing_Option FROM sales_appointments WHERE Appointment_ID = ?");
-                salesStatement.setInt(1, appointmentID);
-                ResultSet salesResult = salesStatement.executeQuery();
-                if (salesResult.next()) {
-                    String vehicle = salesResult.getString("Vehicle");
-                    String financingOptions = salesResult.getString("Financing_Option");
-                    appointment = new SalesAppointment(appointmentID, appointmentTitle, appointmentDescription, appointmentLocation, appointmentType, vehicle, financingOptions, startDateTime, endDateTime, customerID, userID, contactID);
-                    appointmentList.add(appointment);
-                }
-            }
-        }
+    /**
+     * Query for the small sets of appointments read by ID or by change. The full description is read so it can be
+     * cached and indexed for search.
+     */
+    private static final String SELECT_APPOINTMENTS_WITH_DESCRIPTION = APPOINTMENT_COLUMNS + "a.Description" + FROM_APPOINTMENTS;
 
-        return appointmentList;
+    private static final ZoneRules LOCAL_ZONE_RULES = ZoneId.systemDefault().getRules();
 
+    /**
+     * Converts a timestamp read from the database to the local epoch seconds an Appointment holds. Gives the same
+     * value as timestamp.toLocalDateTime() converted with Appointment.toEpochSecond, without building the
+     * LocalDateTime.
+     *
+     * @param timestamp the timestamp
+     * @return the seconds since 1970-01-01T00:00 local time
+     */
+    static long toLocalEpochSecond(Timestamp timestamp) {
+        long instant = Math.floorDiv(timestamp.getTime(), 1000);
+        return instant + LOCAL_ZONE_RULES.getOffset(Instant.ofEpochSecond(instant)).getTotalSeconds();
     }
 
     /**
-     * Retrieves all appointments from the database by a search query.
+     * Maps every row of a result set produced by SELECT_APPOINTMENTS or SELECT_APPOINTMENTS_WITH_DESCRIPTION to its
+     * SalesAppointment or ServiceAppointment. Rows whose subtype row is missing are skipped. The appointments always
+     * hold the preview of their description; full descriptions are handed to AppointmentDescriptions.
      *
+     * @param resultSet        the result set to read
+     * @param fullDescriptions whether the Description column holds the full text rather than the preview
      * @return an observable list of appointments
      * @throws SQLException if there is an error retrieving data from the database
      */
-    public static ObservableList<Appointment> fetchAppointmentsSearch(String searchTitle) throws SQLException {
+    private static ObservableList<Appointment> mapAppointments(ResultSet resultSet, boolean fullDescriptions) throws SQLException {
         ObservableList<Appointment> appointmentList = FXCollections.observableArrayList();
 
-        PreparedStatement statement = JDBC.getConnection().prepareStatement("SELECT * FROM appointments WHERE Title LIKE ?");
-        statement.setString(1, "%" + searchTitle + "%");
-
-        ResultSet resultSet = statement.executeQuery();
-
         while (resultSet.next()) {
             int appointmentID = resultSet.getInt("Appointment_ID");
             String appointmentTitle = resultSet.getString("Title");
             String appointmentDescription = resultSet.getString("Description");
-            String appointmentLocation = resultSet.getString("Location");
-            String appointmentType = resultSet.getString("Type");
-            LocalDateTime startDateTime = resultSet.getTimestamp("Start").toLocalDateTime();
-            LocalDateTime endDateTime = resultSet.getTimestamp("End").toLocalDateTime();
+            if (fullDescriptions) {
+                AppointmentDescriptions.put(appointmentID, appointmentDescription);
+                appointmentDescription = AppointmentDescriptions.preview(appointmentDescription);
+            }
+            String appointmentLocation = StringPool.canonical(resultSet.getString("Location"));
+            String appointmentType = StringPool.canonical(resultSet.getString("Type"));
+            long startEpochSecond = toLocalEpochSecond(resultSet.getTimestamp("Start"));
+            long endEpochSecond = toLocalEpochSecond(resultSet.getTimestamp("End"));
             int customerID = resultSet.getInt("Customer_ID");
             int userID = resultSet.getInt("User_ID");
             int contactID = resultSet.getInt("Contact_ID");
 
-            Appointment appointment;
-
             if (appointmentType.equals("Service Appointment")) {
-                PreparedStatement serviceStatement = JDBC.getConnection().prepareStatement("SELECT Service_Cost, Service_Type FROM service_appointments WHERE Appointment_ID = ?");
-                serviceStatement.setInt(1, appointmentID);
-                ResultSet serviceResult = serviceStatement.executeQuery();
-                if (serviceResult.next()) {
-                    double serviceCost = serviceResult.getDouble("Service_Cost");
-                    String serviceType = serviceResult.getString("Service_Type");
-                    appointment = new ServiceAppointment(appointmentID, appointmentTitle, appointmentDescription, appointmentLocation, appointmentType, serviceCost, serviceType, startDateTime, endDateTime, customerID, userID, contactID);
-                    appointmentList.add(appointment);
+                resultSet.getInt("Service_ID");
+                if (!resultSet.wasNull()) {
+                    double serviceCost = resultSet.getDouble("Service_Cost");
+                    String serviceType = StringPool.canonical(resultSet.getString("Service_Type"));
+                    appointmentList.add(new ServiceAppointment(appointmentID, appointmentTitle, appointmentDescription, appointmentLocation, appointmentType, serviceCost, serviceType, startEpochSecond, endEpochSecond, customerID, userID, contactID));
                 }
             } else if (appointmentType.equals("Sales Appointment")) {
-                PreparedStatement salesStatement = JDBC.getConnection().prepareStatement("SELECT Vehicle, Financing_Option FROM sales_appointments WHERE Appointment_ID = ?");
-                salesStatement.setInt(1, appointmentID);
-                ResultSet salesResult = salesStatement.executeQuery();
-                if (salesResult.next()) {
-                    String vehicle = salesResult.getString("Vehicle");
-                    String financingOptions = salesResult.getString("Financing_Option");
-                    appointment = new SalesAppointment(appointmentID, appointmentTitle, appointmentDescription, appointmentLocation, appointmentType, vehicle, financingOptions, startDateTime, endDateTime, customerID, userID, contactID);
-                    appointmentList.add(appointment);
+                resultSet.getInt("Sales_ID");
+                if (!resultSet.wasNull()) {
+                    String vehicle = StringPool.canonical(resultSet.getString("Vehicle"));
+                    String financingOptions = StringPool.canonical(resultSet.getString("Financing_Option"));
+                    appointmentList.add(new SalesAppointment(appointmentID, appointmentTitle, appointmentDescription, appointmentLocation, appointmentType, vehicle, financingOptions, startEpochSecond, endEpochSecond, customerID, userID, contactID));
                 }
             }
         }
 
         return appointmentList;
-
     }
 
-
     /**
-     * Retrieves all appointments for the current month from the database.
+     * Retrieves all appointments, in start time order. The appointments are answered from the AppointmentStore.
      *
-     * @return an observable list of appointments for the current month
+     * @return an observable list of appointments
      * @throws SQLException if there is an error retrieving data from the database
      */
-    public static ObservableList<Appointment> fetchAppointmentsByMonth(String title) throws SQLException {
-        ObservableList<Appointment> monthAppointmentList = FXCollections.observableArrayList();
-
-        LocalDate currentDate = LocalDate.now();
-        LocalDate endDate = LocalDate.of(currentDate.getYear(), currentDate.getMonth(), currentDate.lengthOfMonth());
-        LocalDate startDate = currentDate.withDayOfMonth(1);
-
-        PreparedStatement statement = JDBC.getConnection().prepareStatement(
-                "SELECT * FROM appointments WHERE (Title LIKE ?) AND (Start >= ? AND Start <= ?)");
-        statement.setString(1, "%" + title + "%");
-        statement.setTimestamp(2, Timestamp.valueOf(startDate.atStartOfDay()));
-        statement.setTimestamp(3, Timestamp.valueOf(endDate.plusDays(1).atStartOfDay()));
-
-        ResultSet resultSet = statement.executeQuery();
-
-        while (resultSet.next()) {
-            int appointmentID = resultSet.getInt("Appointment_ID");
-            String appointmentTitle = resultSet.getString("Title");
-            String appointmentDescription = resultSet.getString("Description");
-            String appointmentLocation = resultSet.getString("Location");
-            String appointmentType = resultSet.getString("Type");
-            LocalDateTime startDateTime = resultSet.getTimestamp("Start").toLocalDateTime();
-            LocalDateTime endDateTime = resultSet.getTimestamp("End").toLocalDateTime();
-            int customerID = resultSet.getInt("Customer_ID");
-            int userID = resultSet.getInt("User_ID");
-            int contactID = resultSet.getInt("Contact_ID");
-
-            Appointment appointment;
+    public static ObservableList<Appointment> fetchAppointments() throws SQLException {
+        return FXCollections.observableArrayList(AppointmentStore.all());
+    }
 
-            if (appointmentType.equals("Service Appointment")) {
-                PreparedStatement serviceStatement = JDBC.getConnection().prepareStatement("SELECT Service_Cost, Service_Type FROM service_appointments WHERE Appointment_ID = ?");
-                serviceStatement.setInt(1, appointmentID);
-                ResultSet serviceResult = serviceStatement.executeQuery();
-                if (serviceResult.next()) {
-                    double serviceCost = serviceResult.getDouble("Service_Cost");
-                    String serviceType = serviceResult.getString("Service_Type");
-                    appointment = new ServiceAppointment(appointmentID, appointmentTitle, appointmentDescription, appointmentLocation, appointmentType, serviceCost, serviceType, startDateTime, endDateTime, customerID, userID, contactID);
-                    monthAppointmentList.add(appointment);
-                }
-            } else if (appointmentType.equals("Sales Appointment")) {
-                PreparedStatement salesStatement = JDBC.getConnection().prepareStatement("SELECT Vehicle, Financing_Option FROM sales_appointments WHERE Appointment_ID = ?");
-                salesStatement.setInt(1, appointmentID);
-                ResultSet salesResult = salesStatement.executeQuery();
-                if (salesResult.next()) {
-                    String vehicle = salesResult.getString("Vehicle");
-                    String financingOptions = salesResult.getString("Financing_Option");
-                    appointment = new SalesAppointment(appointmentID, appointmentTitle, appointmentDescription, appointmentLocation, appointmentType, vehicle, financingOptions, startDateTime, endDateTime, customerID, userID, contactID);
-                    monthAppointmentList.add(appointment);
-                }
+    /**
+     * Reads every appointment from the database. Used by the AppointmentStore to load itself.
+     *
+     * @return an observable list of appointments
+     * @throws SQLException if there is an error retrieving data from the database
+     */
+    static ObservableList<Appointment> readAllAppointments() throws SQLException {
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_APPOINTMENTS)) {
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return mapAppointments(resultSet, false);
             }
         }
-
-        return monthAppointmentList;
     }
 
     /**
-     * Retrieves all appointments for the current week from the database.
+     * Reads the appointments changed at or after a point in time. Used by DeltaSync to refresh the AppointmentStore.
      *
-     * @return an observable list of appointments for the current week
+     * @param connection the connection to read with
+     * @param since      the watermark of the previous sync
+     * @return the appointments inserted or updated since then
      * @throws SQLException if there is an error retrieving data from the database
      */
-    public static ObservableList<Appointment> fetchAppointmentsByWeek(String title) throws SQLException {
-        ObservableList<Appointment> weekAppointmentList = FXCollections.observableArrayList();
-
-        LocalDate currentDate = LocalDate.now();
-        LocalDate endDate = currentDate.with(TemporalAdjusters.next(DayOfWeek.SUNDAY));
-        LocalDate startDate = endDate.minusDays(6);
-
-        PreparedStatement statement = JDBC.getConnection().prepareStatement(
-                "SELECT * FROM appointments WHERE (Title LIKE ?) AND (Start >= ? AND Start <= ?)");
-        statement.setString(1, "%" + title + "%");
-        statement.setTimestamp(2, Timestamp.valueOf(startDate.atStartOfDay()));
-        statement.setTimestamp(3, Timestamp.valueOf(endDate.plusDays(1).atStartOfDay()));
-
-        ResultSet resultSet = statement.executeQuery();
+    static List<Appointment> readAppointmentsChangedSince(Connection connection, Timestamp since) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_APPOINTMENTS_WITH_DESCRIPTION + "WHERE a.Last_Update >= ?")) {
+            statement.setTimestamp(1, since);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return mapAppointments(resultSet, true);
+            }
+        }
+    }
 
-        while (resultSet.next()) {
-            int appointmentID = resultSet.getInt("Appointment_ID");
-            String appointmentTitle = resultSet.getString("Title");
-            String appointmentDescription = resultSet.getString("Description");
-            String appointmentLocation = resultSet.getString("Location");
-            String appointmentType = resultSet.getString("Type");
-            LocalDateTime startDateTime = resultSet.getTimestamp("Start").toLocalDateTime();
-            LocalDateTime endDateTime = resultSet.getTimestamp("End").toLocalDateTime();
-            int customerID = resultSet.getInt("Customer_ID");
-            int userID = resultSet.getInt("User_ID");
-            int contactID = resultSet.getInt("Contact_ID");
+    /**
+     * Retrieves the full description of an appointment. Listed appointments only hold a preview of it.
+     *
+     * @param appointmentID the ID of the appointment
+     * @return the description, or null if there is no such appointment
+     * @throws SQLException if there is an error retrieving data from the database
+     */
+    public static String fetchAppointmentDescription(int appointmentID) throws SQLException {
+        return AppointmentDescriptions.fetch(appointmentID);
+    }
 
-            Appointment appointment;
+    /**
+     * Returns the IDs of the appointments whose title, description or location matches a search query. The query is
+     * answered by the AppointmentSearchIndex without reading any rows, for views that filter appointments they already
+     * hold.
+     *
+     * @param searchTitle the search text
+     * @return the IDs of the matching appointments
+     * @throws SQLException if the search index has to be loaded and there is an error retrieving data from the database
+     */
+    public static Set<Integer> fetchAppointmentMatches(String searchTitle) throws SQLException {
+        return new HashSet<>(AppointmentSearchIndex.search(searchTitle, null, null));
+    }
 
-            if (appointmentType.equals("Service Appointment")) {
-                PreparedStatement serviceStatement = JDBC.getConnection().prepareStatement("SELECT Service_Cost, Service_Type FROM service_appointments WHERE Appointment_ID = ?");
-                serviceStatement.setInt(1, appointmentID);
-                ResultSet serviceResult = serviceStatement.executeQuery();
-                if (serviceResult.next()) {
-                    double serviceCost = serviceResult.getDouble("Service_Cost");
-                    String serviceType = serviceResult.getString("Service_Type");
-                    appointment = new ServiceAppointment(appointmentID, appointmentTitle, appointmentDescription, appointmentLocation, appointmentType, serviceCost, serviceType, startDateTime, endDateTime, customerID, userID, contactID);
-                    weekAppointmentList.add(appointment);
+    /**
+     * Reads the appointments with the given IDs from the database, in no particular order. The IDs are looked up in
+     * batches of a fixed size, padding the last batch, so every batch reuses the same prepared statement.
+     *
+     * @param appointmentIDs the IDs of the appointments to read
+     * @return the appointments found
+     * @throws SQLException if there is an error retrieving data from the database
+     */
+    static List<Appointment> readAppointmentsByIDs(List<Integer> appointmentIDs) throws SQLException {
+        List<Appointment> appointments = new ArrayList<>();
+        if (appointmentIDs.isEmpty()) {
+            return appointments;
+        }
+        StringBuilder sql = new StringBuilder(SELECT_APPOINTMENTS_WITH_DESCRIPTION).append("WHERE a.Appointment_ID IN (?");
+        for (int i = 1; i < ID_BATCH_SIZE; i++) {
+            sql.append(", ?");
+        }
+        sql.append(")");
+
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+            for (int first = 0; first < appointmentIDs.size(); first += ID_BATCH_SIZE) {
+                for (int i = 0; i < ID_BATCH_SIZE; i++) {
+                    int index = Math.min(first + i, appointmentIDs.size() - 1);
+                    statement.setInt(i + 1, appointmentIDs.get(index));
                 }
-            } else if (appointmentType.equals("Sales Appointment")) {
-                PreparedStatement salesStatement = JDBC.getConnection().prepareStatement("SELECT Vehicle, Financing_Option FROM sales_appointments WHERE Appointment_ID = ?");
-                salesStatement.setInt(1, appointmentID);
-                ResultSet salesResult = salesStatement.executeQuery();
-                if (salesResult.next()) {
-                    String vehicle = salesResult.getString("Vehicle");
-                    String financingOptions = salesResult.getString("Financing_Option");
-                    appointment = new SalesAppointment(appointmentID, appointmentTitle, appointmentDescription, appointmentLocation, appointmentType, vehicle, financingOptions, startDateTime, endDateTime, customerID, userID, contactID);
-                    weekAppointmentList.add(appointment);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    appointments.addAll(mapAppointments(resultSet, true));
                 }
             }
         }
+        return appointments;
+    }
+
+    /**
+     * Returns the first day of the month view: the first day of the current month. The view covers one month.
+     *
+     * @return the first day of the current month
+     */
+    public static LocalDate startOfCurrentMonth() {
+        return LocalDate.now().withDayOfMonth(1);
+    }
 
-        return weekAppointmentList;
+    /**
+     * Returns the first day of the week view: the Monday before the next Sunday. The view covers seven days.
+     *
+     * @return the first day of the current week
+     */
+    public static LocalDate startOfCurrentWeek() {
+        return LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.SUNDAY)).minusDays(6);
     }
 
     /**
-     * Retrieves all appointments between the specified start and end times from the database.
+     * Retrieves the appointments of a user that start between the specified start and end times. The user's
+     * appointments are looked up in the AppointmentStore's user index.
      *
-     * @param start the start time of the appointments to retrieve
-     * @param end   the end time of the appointments to retrieve
-     * @return an observable list of appointments between the specified start and end times
+     * @param userName the name of the user to retrieve appointments for
+     * @param start    the start time of the appointments to retrieve
+     * @param end      the end time of the appointments to retrieve
+     * @return an observable list of the user's appointments between the specified start and end times
      * @throws SQLException if there is an error retrieving data from the database
      */
-    public static ObservableList<Appointment> fetchAppointmentsByTime(LocalDateTime start, LocalDateTime end) throws
-            SQLException {
+    public static ObservableList<Appointment> fetchAppointmentsByUserAndTime(String userName, LocalDateTime start,
+                                                                             LocalDateTime end) throws SQLException {
+        long startSecond = Appointment.toEpochSecond(start);
+        long endSecond = Appointment.toEpochSecond(end);
         ObservableList<Appointment> appointmentList = FXCollections.observableArrayList();
-
-        PreparedStatement statement = JDBC.getConnection().prepareStatement("SELECT * FROM appointments WHERE Start >= ? AND Start < ?");
-        statement.setTimestamp(1, Timestamp.valueOf(start));
-        statement.setTimestamp(2, Timestamp.valueOf(end));
-
-        ResultSet resultSet = statement.executeQuery();
-
-        while (resultSet.next()) {
-            int appointmentID = resultSet.getInt("Appointment_ID");
-            String appointmentTitle = resultSet.getString("Title");
-            String appointmentDescription = resultSet.getString("Description");
-            String appointmentLocation = resultSet.getString("Location");
-            String appointmentType = resultSet.getString("Type");
-            LocalDateTime startDateTime = resultSet.getTimestamp("Start").toLocalDateTime();
-            LocalDateTime endDateTime = resultSet.getTimestamp("End").toLocalDateTime();
-            int customerID = resultSet.getInt("Customer_ID");
-            int userID = resultSet.getInt("User_ID");
-            int contactID = resultSet.getInt("Contact_ID");
-
-            Appointment appointment;
-
-            if (appointmentType.equals("Service Appointment")) {
-                PreparedStatement serviceStatement = JDBC.getConnection().prepareStatement("SELECT Service_Cost, Service_Type FROM service_appointments WHERE Appointment_ID = ?");
-                serviceStatement.setInt(1, appointmentID);
-                ResultSet serviceResult = serviceStatement.executeQuery();
-                if (serviceResult.next()) {
-                    double serviceCost = serviceResult.getDouble("Service_Cost");
-                    String serviceType = serviceResult.getString("Service_Type");
-                    appointment = new ServiceAppointment(appointmentID, appointmentTitle, appointmentDescription, appointmentLocation, appointmentType, serviceCost, serviceType, startDateTime, endDateTime, customerID, userID, contactID);
-                    appointmentList.add(appointment);
-                }
-            } else if (appointmentType.equals("Sales Appointment")) {
-                PreparedStatement salesStatement = JDBC.getConnection().prepareStatement("SELECT Vehicle, Financing_Option FROM sales_appointments WHERE Appointment_ID = ?");
-                salesStatement.setInt(1, appointmentID);
-                ResultSet salesResult = salesStatement.executeQuery();
-                if (salesResult.next()) {
-                    String vehicle = salesResult.getString("Vehicle");
-                    String financingOptions = salesResult.getString("Financing_Option");
-                    appointment = new SalesAppointment(appointmentID, appointmentTitle, appointmentDescription, appointmentLocation, appointmentType, vehicle, financingOptions, startDateTime, endDateTime, customerID, userID, contactID);
-                    appointmentList.add(appointment);
-                }
+        for (Appointment appointment : AppointmentStore.forUser(UserHelper.getUserIDByName(userName))) {
+            if (appointment.getStartEpochSecond() >= startSecond && appointment.getStartEpochSecond() < endSecond) {
+                appointmentList.add(appointment);
             }
         }
-
         return appointmentList;
     }
 
@@ -318,59 +269,13 @@ public class AppointmentHelper {
      * @throws SQLException if there is an error retrieving data from the database
      */
     public static ObservableList<Appointment> fetchAppointmentsByContact(String contactName) throws SQLException {
-        ObservableList<Appointment> appointmentList = FXCollections.observableArrayList();
-
-        PreparedStatement statement = JDBC.getConnection().prepareStatement(
-                "SELECT * FROM appointments " +
-                        "JOIN contacts ON appointments.Contact_ID = contacts.Contact_ID " +
-                        "WHERE contacts.Contact_Name = ?");
-        statement.setString(1, contactName);
-
-        ResultSet resultSet = statement.executeQuery();
-
-        while (resultSet.next()) {
-            int appointmentID = resultSet.getInt("Appointment_ID");
-            String appointmentTitle = resultSet.getString("Title");
-            String appointmentDescription = resultSet.getString("Description");
-            String appointmentLocation = resultSet.getString("Location");
-            String appointmentType = resultSet.getString("Type");
-            LocalDateTime startDateTime = resultSet.getTimestamp("Start").toLocalDateTime();
-            LocalDateTime endDateTime = resultSet.getTimestamp("End").toLocalDateTime();
-            int customerID = resultSet.getInt("Customer_ID");
-            int userID = resultSet.getInt("User_ID");
-            int contactID = resultSet.getInt("Contact_ID");
-
-            Appointment appointment;
-
-            if (appointmentType.equals("Service Appointment")) {
-                PreparedStatement serviceStatement = JDBC.getConnection().prepareStatement("SELECT Service_Cost, Service_Type FROM service_appointments WHERE Appointment_ID = ?");
-                serviceStatement.setInt(1, appointmentID);
-                ResultSet serviceResult = serviceStatement.executeQuery();
-                if (serviceResult.next()) {
-                    double serviceCost = serviceResult.getDouble("Service_Cost");
-                    String serviceType = serviceResult.getString("Service_Type");
-                    appointment = new ServiceAppointment(appointmentID, appointmentTitle, appointmentDescription, appointmentLocation, appointmentType, serviceCost, serviceType, startDateTime, endDateTime, customerID, userID, contactID);
-                    appointmentList.add(appointment);
-                }
-            } else if (appointmentType.equals("Sales Appointment")) {
-                PreparedStatement salesStatement = JDBC.getConnection().prepareStatement("SELECT Vehicle, Financing_Option FROM sales_appointments WHERE Appointment_ID = ?");
-                salesStatement.setInt(1, appointmentID);
-                ResultSet salesResult = salesStatement.executeQuery();
-                if (salesResult.next()) {
-                    String vehicle = salesResult.getString("Vehicle");
-                    String financingOptions = salesResult.getString("Financing_Option");
-                    appointment = new SalesAppointment(appointmentID, appointmentTitle, appointmentDescription, appointmentLocation, appointmentType, vehicle, financingOptions, startDateTime, endDateTime, customerID, userID, contactID);
-                    appointmentList.add(appointment);
-                }
-            }
-        }
-
-        return appointmentList;
+        return FXCollections.observableArrayList(AppointmentStore.forContact(ContactHelper.getContactIDByName(contactName)));
     }
 
     /**
-     * Creates a new appointment in the database.
+     * Queues the creation of a new appointment in a unit of work.
      *
+     * @param work                   the unit of work the statement is added to
      * @param appointmentID          the appointment ID
      * @param appointmentTitle       the appointment title
      * @param appointmentDescription the appointment description
@@ -381,33 +286,28 @@ public class AppointmentHelper {
      * @param customerID             the customer ID associated with the appointment
      * @param userID                 the user ID associated with the appointment
      * @param contactID              the contact ID associated with the appointment
-     * @throws SQLException if there is an error inserting data into the database
      */
-    public static void createAppointment(int appointmentID, String appointmentTitle, String
+    public static void createAppointment(UnitOfWork work, int appointmentID, String appointmentTitle, String
             appointmentDescription, String appointmentLocation, String appointmentType,
-                                         LocalDateTime startDateTime, LocalDateTime endDateTime, int customerID, int userID, int contactID) throws
-            SQLException {
-
-        PreparedStatement statement = JDBC.getConnection().prepareStatement("INSERT INTO appointments VALUES(?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP , 'user', CURRENT_TIMESTAMP, 'user', ?, ?, ?);");
-        statement.setInt(1, appointmentID);
-        statement.setString(2, appointmentTitle);
-        statement.setString(3, appointmentDescription);
-        statement.setString(4, appointmentLocation);
-        statement.setString(5, appointmentType);
-        statement.setTimestamp(6, Timestamp.valueOf(startDateTime));
-        statement.setTimestamp(7, Timestamp.valueOf(endDateTime));
-        statement.setInt(8, customerID);
-        statement.setInt(9, userID);
-        statement.setInt(10, contactID);
-
-        statement.execute();
-
+                                         LocalDateTime startDateTime, LocalDateTime endDateTime, int customerID, int userID, int contactID) {
+
+        work.add("INSERT INTO appointments VALUES(?, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP , 'user', CURRENT_TIMESTAMP, 'user', ?, ?, ?);",
+                appointmentID, appointmentTitle, appointmentDescription, appointmentLocation, appointmentType,
+                Timestamp.valueOf(startDateTime), Timestamp.valueOf(endDateTime), customerID, userID, contactID);
+        ChangeFeed.record(work, "appointments", appointmentID, ChangeFeed.INSERT);
+        work.afterCommit(() -> {
+            AppointmentIntervalIndex.put(appointmentID, startDateTime, endDateTime, customerID, userID, contactID);
+            AppointmentDescriptions.put(appointmentID, appointmentDescription);
+            AppointmentSearchIndex.put(appointmentID, appointmentTitle, appointmentDescription, appointmentLocation, startDateTime);
+            CustomerAppointmentFilter.add(customerID);
+        });
     }
 
 
     /**
-     * Edits an existing appointment in the database.
+     * Queues an edit of an existing appointment in a unit of work.
      *
+     * @param work                   the unit of work the statement is added to
      * @param appointmentID          the appointment ID
      * @param appointmentTitle       the appointment title
      * @param appointmentDescription the appointment description
@@ -418,42 +318,39 @@ public class AppointmentHelper {
      * @param customerID             the customer ID associated with the appointment
      * @param userID                 the user ID associated with the appointment
      * @param contactID              the contact ID associated with the appointment
-     * @throws SQLException if there is an error updating data in the database
      */
-    public static void editAppointment(int appointmentID, String appointmentTitle, String
+    public static void editAppointment(UnitOfWork work, int appointmentID, String appointmentTitle, String
             appointmentDescription, String appointmentLocation, String appointmentType,
-                                       LocalDateTime startDateTime, LocalDateTime endDateTime, int customerID, int userID, int contactID) throws
-            SQLException {
-
-        PreparedStatement statement = JDBC.getConnection().prepareStatement("UPDATE appointments SET Title = ?, Description = ?, Location = ?, Type = ?, Start = ?, End = ?, Last_Update = CURRENT_TIMESTAMP, Customer_ID = ?, User_ID = ?, Contact_ID = ? WHERE Appointment_ID = ?");
-        statement.setString(1, appointmentTitle);
-        statement.setString(2, appointmentDescription);
-        statement.setString(3, appointmentLocation);
-        statement.setString(4, appointmentType);
-        statement.setTimestamp(5, Timestamp.valueOf(startDateTime));
-        statement.setTimestamp(6, Timestamp.valueOf(endDateTime));
-        statement.setInt(7, customerID);
-        statement.setInt(8, userID);
-        statement.setInt(9, contactID);
-        statement.setInt(10, appointmentID);
-
-
-        statement.execute();
-
+                                       LocalDateTime startDateTime, LocalDateTime endDateTime, int customerID, int userID, int contactID) {
+
+        work.add("UPDATE appointments SET Title = ?, Description = ?, Location = ?, Type = ?, Start = ?, End = ?, Last_Update = CURRENT_TIMESTAMP, Customer_ID = ?, User_ID = ?, Contact_ID = ? WHERE Appointment_ID = ?",
+                appointmentTitle, appointmentDescription, appointmentLocation, appointmentType,
+                Timestamp.valueOf(startDateTime), Timestamp.valueOf(endDateTime), customerID, userID, contactID, appointmentID);
+        ChangeFeed.record(work, "appointments", appointmentID, ChangeFeed.UPDATE);
+        work.afterCommit(() -> {
+            AppointmentIntervalIndex.put(appointmentID, startDateTime, endDateTime, customerID, userID, contactID);
+            AppointmentDescriptions.put(appointmentID, appointmentDescription);
+            AppointmentSearchIndex.put(appointmentID, appointmentTitle, appointmentDescription, appointmentLocation, startDateTime);
+            CustomerAppointmentFilter.add(customerID);
+        });
     }
 
     /**
-     * Deletes an appointment from the database.
+     * Queues the deletion of an appointment in a unit of work. The sales or service row has to be deleted first.
      *
+     * @param work          the unit of work the statement is added to
      * @param appointmentID the appointment ID to delete
-     * @throws SQLException if there is an error executing the SQL statement
      */
-    public static void deleteAppointment(int appointmentID) throws SQLException {
-        String sqlDC = "DELETE from appointments WHERE Appointment_ID = ?";
-        try (PreparedStatement psDC = JDBC.getConnection().prepareStatement(sqlDC)) {
-            psDC.setInt(1, appointmentID);
-            psDC.execute();
-        }
+    public static void deleteAppointment(UnitOfWork work, int appointmentID) {
+        work.add("DELETE from appointments WHERE Appointment_ID = ?", appointmentID);
+        DeltaSync.recordDelete(work, "appointments", appointmentID);
+        ChangeFeed.record(work, "appointments", appointmentID, ChangeFeed.DELETE);
+        work.afterCommit(() -> {
+            AppointmentIntervalIndex.remove(appointmentID);
+            AppointmentSearchIndex.remove(appointmentID);
+            AppointmentDescriptions.remove(appointmentID);
+            AppointmentStore.remove(appointmentID);
+        });
     }
 
     /**
@@ -468,10 +365,8 @@ public class AppointmentHelper {
      */
     public static boolean isAppointmentOverlap(LocalDateTime startDateTime, LocalDateTime endDateTime,
                                                int customerID, int appointmentID) throws SQLException {
-        ObservableList<Appointment> appointments = fetchAppointments();
-
-        for (Appointment appointment : appointments) {
-            if (appointment.getCustomerID() == customerID && appointment.getAppointmentID() != appointmentID && appointment.getStartDateTime().isBefore(endDateTime) && startDateTime.isBefore(appointment.getEndDateTime())) {
+        for (int conflictID : AppointmentIntervalIndex.findConflicts(startDateTime, endDateTime, ResourceKey.customer(customerID))) {
+            if (conflictID != appointmentID) {
                 return true;
             }
         }
@@ -480,38 +375,36 @@ public class AppointmentHelper {
     }
 
     /**
-     * Determines whether a customer has any appointments.
+     * Determines whether a customer has any appointments. Customers the CustomerAppointmentFilter rules out are answered
+     * without a query; the rest are checked with an EXISTS probe.
      *
      * @param customerID The ID of the customer to check for appointments.
      * @return true if the customer has any appointments, false otherwise.
      * @throws SQLException if there is an error retrieving data from the database
      */
     public static boolean customerHasAppointments(int customerID) throws SQLException {
-        ObservableList<Appointment> appointments = fetchAppointments();
+        if (CustomerAppointmentFilter.definitelyHasNone(customerID)) {
+            return false;
+        }
 
-        for (Appointment appointment : appointments) {
-            if (appointment.getCustomerID() == customerID) {
-                return true;
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT EXISTS(SELECT 1 FROM appointments WHERE Customer_ID = ?)")) {
+            statement.setInt(1, customerID);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
             }
         }
-
-        return false;
     }
 
     /**
-     * Retrieves the highest ID currently in use for appointments in the database.
+     * Returns an unused ID for a new appointment. IDs are reserved from the database in blocks, so most calls do not
+     * need a query.
      *
-     * @return the highest ID currently in use for appointments in the database
-     * @throws SQLException if there is an error retrieving data from the database
+     * @return an unused ID for a new appointment
+     * @throws SQLException if a new block of IDs cannot be reserved
      */
-    public static int maxID() throws SQLException {
-        int appointmentID = 0;
-        PreparedStatement statement = JDBC.getConnection().prepareStatement("SELECT MAX(Appointment_ID) FROM appointments");
-        ResultSet resultSet = statement.executeQuery();
-        if (resultSet.next()) {
-            appointmentID = resultSet.getInt(1) + 1;
-        }
-        return appointmentID;
+    public static int nextID() throws SQLException {
+        return appointmentIDs.next();
     }
 
 }
@@ -0,0 +1,184 @@
+package Database;
+
+import Models.Appointment;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An in-memory index of appointment time slots, with one interval tree per customer, contact and user.
+ * <p>
+ * The index is built whenever the full appointments table is loaded and is kept current by the create, edit and
+ * delete methods in AppointmentHelper. Until it has been built it is cold, and conflict checks fall back to a
+ * bounded range query against the database instead.
+ */
+public class AppointmentIntervalIndex {
+
+    private static final Map<ResourceKey, IntervalTree> trees = new HashMap<>();
+    private static final Map<Integer, Slot> slots = new HashMap<>();
+    private static boolean warm = false;
+
+    /**
+     * The time slot and resources of one indexed appointment.
+     */
+    private static class Slot {
+        private final long start;
+        private final long end;
+        private final ResourceKey[] resources;
+
+        private Slot(long start, long end, int customerID, int userID, int contactID) {
+            this.start = start;
+            this.end = end;
+            this.resources = new ResourceKey[]{ResourceKey.customer(customerID), ResourceKey.user(userID), ResourceKey.contact(contactID)};
+        }
+    }
+
+    /**
+     * Replaces the contents of the index with the given appointments and marks it warm.
+     *
+     * @param appointments every appointment in the database
+     */
+    public static synchronized void rebuild(List<Appointment> appointments) {
+        trees.clear();
+        slots.clear();
+        for (Appointment appointment : appointments) {
+            add(appointment.getAppointmentID(), appointment.getStartEpochSecond(), appointment.getEndEpochSecond(),
+                    appointment.getCustomerID(), appointment.getUserID(), appointment.getContactID());
+        }
+        warm = true;
+    }
+
+    /**
+     * Empties the index and marks it cold, so conflict checks go back to the database.
+     */
+    public static synchronized void invalidate() {
+        trees.clear();
+        slots.clear();
+        warm = false;
+    }
+
+    /**
+     * Returns whether the index has been built and can answer conflict checks by itself.
+     *
+     * @return true if the index is warm
+     */
+    public static synchronized boolean isWarm() { return warm; }
+
+    /**
+     * Adds or replaces an appointment in the index. Does nothing while the index is cold.
+     *
+     * @param appointmentID the ID of the appointment
+     * @param startDateTime the start date and time of the appointment
+     * @param endDateTime   the end date and time of the appointment
+     * @param customerID    the ID of the customer associated with the appointment
+     * @param userID        the ID of the user associated with the appointment
+     * @param contactID     the ID of the contact associated with the appointment
+     */
+    public static void put(int appointmentID, LocalDateTime startDateTime, LocalDateTime endDateTime,
+                           int customerID, int userID, int contactID) {
+        put(appointmentID, toKey(startDateTime), toKey(endDateTime), customerID, userID, contactID);
+    }
+
+    /**
+     * Adds or replaces an appointment in the index, with its times as local epoch seconds. Does nothing while the
+     * index is cold.
+     *
+     * @param appointmentID    the ID of the appointment
+     * @param startEpochSecond the start of the appointment, as held by Appointment
+     * @param endEpochSecond   the end of the appointment, as held by Appointment
+     * @param customerID       the ID of the customer associated with the appointment
+     * @param userID           the ID of the user associated with the appointment
+     * @param contactID        the ID of the contact associated with the appointment
+     */
+    public static synchronized void put(int appointmentID, long startEpochSecond, long endEpochSecond,
+                                        int customerID, int userID, int contactID) {
+        if (!warm) {
+            return;
+        }
+        remove(appointmentID);
+        add(appointmentID, startEpochSecond, endEpochSecond, customerID, userID, contactID);
+    }
+
+    /**
+     * Removes an appointment from the index. Does nothing while the index is cold.
+     *
+     * @param appointmentID the ID of the appointment
+     */
+    public static synchronized void remove(int appointmentID) {
+        Slot slot = slots.remove(appointmentID);
+        if (slot == null) {
+            return;
+        }
+        for (ResourceKey resource : slot.resources) {
+            IntervalTree tree = trees.get(resource);
+            tree.remove(slot.start, appointmentID);
+            if (tree.size() == 0) {
+                trees.remove(resource);
+            }
+        }
+    }
+
+    /**
+     * Finds the appointments booked on a resource that overlap the given time window.
+     * <p>
+     * While the index is warm this is answered from memory; otherwise it runs a range query that only reads the
+     * resource's appointments inside the window.
+     *
+     * @param startDateTime the start of the window
+     * @param endDateTime   the end of the window
+     * @param resourceKey   the customer, contact or user to check
+     * @return the IDs of the overlapping appointments
+     * @throws SQLException if there is an error retrieving data from the database
+     */
+    public static List<Integer> findConflicts(LocalDateTime startDateTime, LocalDateTime endDateTime, ResourceKey resourceKey) throws SQLException {
+        List<Integer> conflicts = new ArrayList<>();
+        synchronized (AppointmentIntervalIndex.class) {
+            if (warm) {
+                IntervalTree tree = trees.get(resourceKey);
+                if (tree != null) {
+                    tree.findOverlapping(toKey(startDateTime), toKey(endDateTime), conflicts);
+                }
+                return conflicts;
+            }
+        }
+
+        String column = resourceKey.getType().getColumn();
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT Appointment_ID FROM appointments WHERE " + column + " = ? AND Start < ? AND End > ?")) {
+            statement.setInt(1, resourceKey.getID());
+            statement.setTimestamp(2, Timestamp.valueOf(endDateTime));
+            statement.setTimestamp(3, Timestamp.valueOf(startDateTime));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    conflicts.add(resultSet.getInt("Appointment_ID"));
+                }
+            }
+        }
+        return conflicts;
+    }
+
+    private static void add(int appointmentID, long startEpochSecond, long endEpochSecond, int customerID, int userID, int contactID) {
+        Slot slot = new Slot(startEpochSecond, endEpochSecond, customerID, userID, contactID);
+        slots.put(appointmentID, slot);
+        for (ResourceKey resource : slot.resources) {
+            trees.computeIfAbsent(resource, key -> new IntervalTree()).insert(slot.start, slot.end, appointmentID);
+        }
+    }
+
+    /**
+     * Converts a local date and time to a key. Keys are the local epoch seconds Appointment holds, so loaded
+     * appointments are indexed without converting their times.
+     */
+    private static long toKey(LocalDateTime dateTime) {
+        return Appointment.toEpochSecond(dateTime);
+    }
+}
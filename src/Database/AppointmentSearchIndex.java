@@ -0,0 +1,273 @@
+package Database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An in-memory trigram index over appointment titles, descriptions and locations.
+ * <p>
+ * Every three-character window of each field maps to the set of appointments containing it. A search term of three or
+ * more characters narrows the candidates to the appointments holding all of its trigrams and then confirms the
+ * substring on the few that remain, so a search never scans the appointments table. Shorter terms are checked against
+ * every indexed appointment, which is still an in-memory pass.
+ * <p>
+ * The index only stores the searchable text and start time; callers load the matching appointments by ID. It is built
+ * on the first search and kept current by the write methods in AppointmentHelper.
+ * <p>
+ * Unlike the AppointmentStore, which only holds a preview of each description, the index keeps every full
+ * description, lower-cased, because matches are confirmed against the text itself. Searching therefore costs the heap
+ * the lazy description loading saves elsewhere, for as long as the session keeps the index; a session that never
+ * searches never loads it. Appointments written by other clients
+ * reach it through the AppointmentStore, which refreshes itself before every search and passes on what changed.
+ */
+public class AppointmentSearchIndex {
+
+    private static final int TITLE_WEIGHT = 3;
+    private static final int LOCATION_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private static final Map<Long, Set<Integer>> postings = new HashMap<>();
+    private static final Map<Integer, Document> documents = new HashMap<>();
+    private static boolean loaded = false;
+
+    /**
+     * The normalized searchable fields of one appointment.
+     */
+    private static class Document {
+        private final String title;
+        private final String description;
+        private final String location;
+        private final long start;
+
+        private Document(String title, String description, String location, LocalDateTime startDateTime) {
+            this.title = normalize(title);
+            this.description = normalize(description);
+            this.location = normalize(location);
+            this.start = startDateTime.toEpochSecond(ZoneOffset.UTC);
+        }
+
+        /**
+         * Scores a term against this document: the weights of the fields that contain it, or 0 if none do.
+         */
+        private int score(String term) {
+            int score = 0;
+            if (title.contains(term)) {
+                score += TITLE_WEIGHT;
+            }
+            if (location.contains(term)) {
+                score += LOCATION_WEIGHT;
+            }
+            if (description.contains(term)) {
+                score += DESCRIPTION_WEIGHT;
+            }
+            return score;
+        }
+    }
+
+    /**
+     * A matching appointment and its score, used to rank results.
+     */
+    private static class Hit {
+        private final int appointmentID;
+        private final int score;
+        private final long start;
+
+        private Hit(int appointmentID, int score, long start) {
+            this.appointmentID = appointmentID;
+            this.score = score;
+            this.start = start;
+        }
+    }
+
+    /**
+     * Searches appointment titles, descriptions and locations.
+     * <p>
+     * The query is split into terms on whitespace and each term is matched as a case-insensitive substring. An
+     * appointment matches if any term matches. Results are ranked by how many terms match and in which fields, with
+     * title matches weighted highest, then by start time.
+     *
+     * @param query         the search text
+     * @param startDateTime if not null, only appointments starting at or after this time are returned
+     * @param endDateTime   if not null, only appointments starting before this time are returned
+     * @return the IDs of the matching appointments, best match first
+     * @throws SQLException if the index has to be loaded and there is an error retrieving data from the database
+     */
+    public static List<Integer> search(String query, LocalDateTime startDateTime, LocalDateTime endDateTime) throws SQLException {
+        // merged outside this class's lock, since the store calls back into the index while holding its own
+        AppointmentStore.refresh();
+        synchronized (AppointmentSearchIndex.class) {
+            if (!loaded) {
+                load();
+            }
+            return rank(query, startDateTime, endDateTime);
+        }
+    }
+
+    private static List<Integer> rank(String query, LocalDateTime startDateTime, LocalDateTime endDateTime) {
+        long from = startDateTime == null ? Long.MIN_VALUE : startDateTime.toEpochSecond(ZoneOffset.UTC);
+        long to = endDateTime == null ? Long.MAX_VALUE : endDateTime.toEpochSecond(ZoneOffset.UTC);
+
+        Map<Integer, Integer> scores = new HashMap<>();
+        for (String term : normalize(query).split("\\s+")) {
+            if (term.isEmpty()) {
+                continue;
+            }
+            for (int appointmentID : candidates(term)) {
+                Document document = documents.get(appointmentID);
+                if (document.start < from || document.start >= to) {
+                    continue;
+                }
+                int score = document.score(term);
+                if (score > 0) {
+                    scores.merge(appointmentID, score, Integer::sum);
+                }
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(scores.size());
+        for (Map.Entry<Integer, Integer> entry : scores.entrySet()) {
+            hits.add(new Hit(entry.getKey(), entry.getValue(), documents.get(entry.getKey()).start));
+        }
+        hits.sort((a, b) -> a.score != b.score ? Integer.compare(b.score, a.score)
+                : a.start != b.start ? Long.compare(a.start, b.start) : Integer.compare(a.appointmentID, b.appointmentID));
+
+        List<Integer> result = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            result.add(hit.appointmentID);
+        }
+        return result;
+    }
+
+    /**
+     * Adds or replaces an appointment in the index. Does nothing until the index has been loaded.
+     *
+     * @param appointmentID          the ID of the appointment
+     * @param appointmentTitle       the title of the appointment
+     * @param appointmentDescription the description of the appointment
+     * @param appointmentLocation    the location of the appointment
+     * @param startDateTime          the start date and time of the appointment
+     */
+    public static synchronized void put(int appointmentID, String appointmentTitle, String appointmentDescription,
+                                        String appointmentLocation, LocalDateTime startDateTime) {
+        if (!loaded) {
+            return;
+        }
+        remove(appointmentID);
+        add(appointmentID, new Document(appointmentTitle, appointmentDescription, appointmentLocation, startDateTime));
+    }
+
+    /**
+     * Removes an appointment from the index.
+     *
+     * @param appointmentID the ID of the appointment
+     */
+    public static synchronized void remove(int appointmentID) {
+        Document document = documents.remove(appointmentID);
+        if (document == null) {
+            return;
+        }
+        for (long trigram : trigrams(document)) {
+            Set<Integer> ids = postings.get(trigram);
+            ids.remove(appointmentID);
+            if (ids.isEmpty()) {
+                postings.remove(trigram);
+            }
+        }
+    }
+
+    /**
+     * Discards the index so the next search reloads it.
+     */
+    public static synchronized void invalidate() {
+        postings.clear();
+        documents.clear();
+        loaded = false;
+    }
+
+    private static void load() throws SQLException {
+        postings.clear();
+        documents.clear();
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT Appointment_ID, Title, Description, Location, Start FROM appointments")) {
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    add(resultSet.getInt("Appointment_ID"), new Document(resultSet.getString("Title"), resultSet.getString("Description"),
+                            StringPool.canonical(resultSet.getString("Location")), resultSet.getTimestamp("Start").toLocalDateTime()));
+                }
+            }
+        }
+        loaded = true;
+    }
+
+    private static void add(int appointmentID, Document document) {
+        documents.put(appointmentID, document);
+        for (long trigram : trigrams(document)) {
+            postings.computeIfAbsent(trigram, key -> new HashSet<>()).add(appointmentID);
+        }
+    }
+
+    /**
+     * Returns the appointments that may contain a term. For terms of three or more characters this is the intersection
+     * of the postings of the term's trigrams, starting from the smallest; shorter terms have no trigrams, so every
+     * appointment is a candidate.
+     */
+    private static Collection<Integer> candidates(String term) {
+        if (term.length() < 3) {
+            return documents.keySet();
+        }
+        List<Set<Integer>> lists = new ArrayList<>();
+        for (int i = 0; i + 3 <= term.length(); i++) {
+            Set<Integer> ids = postings.get(trigram(term, i));
+            if (ids == null) {
+                return new ArrayList<>();
+            }
+            lists.add(ids);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+        List<Integer> result = new ArrayList<>();
+        for (int appointmentID : lists.get(0)) {
+            boolean inAll = true;
+            for (int i = 1; i < lists.size() && inAll; i++) {
+                inAll = lists.get(i).contains(appointmentID);
+            }
+            if (inAll) {
+                result.add(appointmentID);
+            }
+        }
+        return result;
+    }
+
+    private static Set<Long> trigrams(Document document) {
+        Set<Long> trigrams = new HashSet<>();
+        for (String field : new String[]{document.title, document.description, document.location}) {
+            for (int i = 0; i + 3 <= field.length(); i++) {
+                trigrams.add(trigram(field, i));
+            }
+        }
+        return trigrams;
+    }
+
+    /**
+     * Packs the three characters starting at an index into one key.
+     */
+    private static long trigram(String text, int index) {
+        return ((long) text.charAt(index) << 32) | ((long) text.charAt(index + 1) << 16) | text.charAt(index + 2);
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,346 @@
+package Database;
+
+import Models.Appointment;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * An in-memory copy of every appointment, with secondary indexes for the lookups the screens and reports make.
+ * <p>
+ * Appointments are held by ID, in hash indexes by customer, contact, user and type, and in a set sorted by start time
+ * and ID that answers time windows. The store is read through: it is loaded from the database on
+ * first use. Appointments other clients write are merged in as the ChangeFeed reports them, and as a backstop for
+ * writes that bypass the change log, a read on a store older than the refresh interval first merges in the Last_Update
+ * delta through DeltaSync. Whatever is merged is passed on to the AppointmentIntervalIndex, AppointmentSearchIndex,
+ * CustomerAppointmentFilter and AppointmentColumns. In between it is written through by the appointment write paths
+ * once their unit of work commits, so the screens never have to go back to the database for data this client wrote
+ * itself. Every write the loaded store applies, merged or written through, moves the appointment between the
+ * ReportCounters totals, which the store also seeds.
+ * <p>
+ * Appointments are immutable, so the store hands out the same objects it holds.
+ */
+public class AppointmentStore {
+
+    private static final long REFRESH_INTERVAL_MILLIS = 300_000;
+
+    private static final Comparator<Appointment> BY_START =
+            Comparator.comparingLong(Appointment::getStartEpochSecond).thenComparingInt(Appointment::getAppointmentID);
+
+    private static final Map<Integer, Appointment> byID = new HashMap<>();
+    private static final Map<Integer, Set<Integer>> byCustomer = new HashMap<>();
+    private static final Map<Integer, Set<Integer>> byContact = new HashMap<>();
+    private static final Map<Integer, Set<Integer>> byUser = new HashMap<>();
+    private static final Map<String, Set<Integer>> byType = new HashMap<>();
+    private static final NavigableSet<Appointment> byStart = new TreeSet<>(BY_START);
+    private static final DeltaSync sync = new DeltaSync("appointments");
+    private static long loadedAt = 0;
+    private static boolean loaded = false;
+
+    /**
+     * Loads the store, or merges in what other clients changed if it is older than the refresh interval.
+     *
+     * @throws SQLException if there is an error retrieving data from the database
+     */
+    public static synchronized void refresh() throws SQLException {
+        ensureLoaded();
+    }
+
+    /**
+     * Returns every appointment, in start time order.
+     *
+     * @return a new list of all appointments
+     * @throws SQLException if the store has to be loaded and there is an error retrieving data from the database
+     */
+    public static synchronized List<Appointment> all() throws SQLException {
+        ensureLoaded();
+        return new ArrayList<>(byStart);
+    }
+
+    /**
+     * Returns an appointment by ID.
+     *
+     * @param appointmentID the ID of the appointment
+     * @return the appointment, or null if it is not in the store
+     * @throws SQLException if the store has to be loaded and there is an error retrieving data from the database
+     */
+    public static synchronized Appointment get(int appointmentID) throws SQLException {
+        ensureLoaded();
+        return byID.get(appointmentID);
+    }
+
+    /**
+     * Returns the appointments of a customer, in start time order.
+     *
+     * @param customerID the ID of the customer
+     * @return a new list of the customer's appointments
+     * @throws SQLException if the store has to be loaded and there is an error retrieving data from the database
+     */
+    public static synchronized List<Appointment> forCustomer(int customerID) throws SQLException {
+        ensureLoaded();
+        return lookup(byCustomer.get(customerID));
+    }
+
+    /**
+     * Returns the appointments of a contact, in start time order.
+     *
+     * @param contactID the ID of the contact
+     * @return a new list of the contact's appointments
+     * @throws SQLException if the store has to be loaded and there is an error retrieving data from the database
+     */
+    public static synchronized List<Appointment> forContact(int contactID) throws SQLException {
+        ensureLoaded();
+        return lookup(byContact.get(contactID));
+    }
+
+    /**
+     * Returns the appointments of a user, in start time order.
+     *
+     * @param userID the ID of the user
+     * @return a new list of the user's appointments
+     * @throws SQLException if the store has to be loaded and there is an error retrieving data from the database
+     */
+    public static synchronized List<Appointment> forUser(int userID) throws SQLException {
+        ensureLoaded();
+        return lookup(byUser.get(userID));
+    }
+
+    /**
+     * Returns the appointments of a type, in start time order.
+     *
+     * @param appointmentType the type, such as "Sales Appointment"
+     * @return a new list of the appointments of that type
+     * @throws SQLException if the store has to be loaded and there is an error retrieving data from the database
+     */
+    public static synchronized List<Appointment> ofType(String appointmentType) throws SQLException {
+        ensureLoaded();
+        return lookup(byType.get(appointmentType));
+    }
+
+    /**
+     * Returns the number of appointments of each type, read straight from the type index.
+     *
+     * @return a new map from type to number of appointments
+     * @throws SQLException if the store has to be loaded and there is an error retrieving data from the database
+     */
+    public static synchronized Map<String, Integer> countByType() throws SQLException {
+        ensureLoaded();
+        Map<String, Integer> counts = new HashMap<>();
+        byType.forEach((type, ids) -> counts.put(type, ids.size()));
+        return counts;
+    }
+
+    /**
+     * Returns the number of appointments of each contact, read straight from the contact index.
+     *
+     * @return a new map from contact ID to number of appointments
+     * @throws SQLException if the store has to be loaded and there is an error retrieving data from the database
+     */
+    public static synchronized Map<Integer, Integer> countByContact() throws SQLException {
+        ensureLoaded();
+        Map<Integer, Integer> counts = new HashMap<>();
+        byContact.forEach((contactID, ids) -> counts.put(contactID, ids.size()));
+        return counts;
+    }
+
+    /**
+     * Seeds the ReportCounters type and contact totals from the indexes. Holding the store's lock keeps out writes,
+     * which report their own deltas, until the totals are seeded.
+     *
+     * @throws SQLException if the store has to be loaded and there is an error retrieving data from the database
+     */
+    static synchronized void seedReportCounters() throws SQLException {
+        ReportCounters.seedAppointments(countByType(), countByContact());
+    }
+
+    /**
+     * Returns the appointments starting in a window, in start time order.
+     *
+     * @param start          the start of the window, inclusive
+     * @param end            the end of the window
+     * @param endInclusive   whether appointments starting exactly at the end are included
+     * @return a new list of the appointments in the window
+     * @throws SQLException if the store has to be loaded and there is an error retrieving data from the database
+     */
+    public static synchronized List<Appointment> between(LocalDateTime start, LocalDateTime end, boolean endInclusive) throws SQLException {
+        ensureLoaded();
+        List<Appointment> result = new ArrayList<>();
+        long endSecond = Appointment.toEpochSecond(end);
+        for (Appointment appointment : byStart.tailSet(probe(start, Integer.MIN_VALUE), true)) {
+            long startSecond = appointment.getStartEpochSecond();
+            if (startSecond > endSecond || (startSecond == endSecond && !endInclusive)) {
+                break;
+            }
+            result.add(appointment);
+        }
+        return result;
+    }
+
+    /**
+     * Adds or replaces an appointment. Does nothing until the store has been loaded.
+     *
+     * @param appointment the appointment as it now is in the database
+     */
+    public static synchronized void put(Appointment appointment) {
+        AppointmentColumns.put(appointment);
+        if (!loaded) {
+            return;
+        }
+        Appointment previous = drop(appointment.getAppointmentID());
+        add(appointment);
+        ReportCounters.appointmentChanged(previous, appointment);
+    }
+
+    /**
+     * Removes an appointment.
+     *
+     * @param appointmentID the ID of the appointment
+     */
+    public static synchronized void remove(int appointmentID) {
+        Appointment previous = drop(appointmentID);
+        AppointmentColumns.remove(appointmentID);
+        if (previous != null) {
+            ReportCounters.appointmentChanged(previous, null);
+        }
+    }
+
+    /**
+     * Removes an appointment from the store's own indexes.
+     *
+     * @return the appointment removed, or null if it was not in the store
+     */
+    private static Appointment drop(int appointmentID) {
+        Appointment appointment = byID.remove(appointmentID);
+        if (appointment == null) {
+            return null;
+        }
+        unindex(byCustomer, appointment.getCustomerID(), appointmentID);
+        unindex(byContact, appointment.getContactID(), appointmentID);
+        unindex(byUser, appointment.getUserID(), appointmentID);
+        unindex(byType, appointment.getAppointmentType(), appointmentID);
+        byStart.remove(appointment);
+        return appointment;
+    }
+
+    private static void ensureLoaded() throws SQLException {
+        if (!loaded) {
+            load();
+        } else if (System.currentTimeMillis() - loadedAt > REFRESH_INTERVAL_MILLIS) {
+            DeltaSync.Delta<Appointment> delta = sync.pull(AppointmentHelper::readAppointmentsChangedSince);
+            merge(delta.getChanged(), delta.getDeletedIDs());
+            loadedAt = System.currentTimeMillis();
+        }
+    }
+
+    private static void load() throws SQLException {
+        sync.start();
+        List<Appointment> appointments = AppointmentHelper.readAllAppointments();
+        clear();
+        for (Appointment appointment : appointments) {
+            add(appointment);
+        }
+        AppointmentIntervalIndex.rebuild(appointments);
+        loadedAt = System.currentTimeMillis();
+        loaded = true;
+    }
+
+    /**
+     * Re-reads appointments another client has changed, as reported by the ChangeFeed. Appointments that no longer
+     * exist are removed. Does nothing until the store has been loaded.
+     *
+     * @param appointmentIDs the IDs of the changed appointments
+     * @throws SQLException if there is an error retrieving data from the database
+     */
+    public static synchronized void applyChanges(Collection<Integer> appointmentIDs) throws SQLException {
+        if (!loaded) {
+            return;
+        }
+        List<Appointment> changed = AppointmentHelper.readAppointmentsByIDs(new ArrayList<>(appointmentIDs));
+        Set<Integer> deletedIDs = new HashSet<>(appointmentIDs);
+        for (Appointment appointment : changed) {
+            deletedIDs.remove(appointment.getAppointmentID());
+        }
+        merge(changed, deletedIDs);
+    }
+
+    /**
+     * Applies changed and deleted appointments to the store and the indexes derived from the same rows.
+     */
+    private static void merge(Collection<Appointment> changed, Collection<Integer> deletedIDs) {
+        for (Appointment appointment : changed) {
+            int appointmentID = appointment.getAppointmentID();
+            Appointment previous = drop(appointmentID);
+            add(appointment);
+            AppointmentColumns.put(appointment);
+            ReportCounters.appointmentChanged(previous, appointment);
+            AppointmentIntervalIndex.put(appointmentID, appointment.getStartEpochSecond(), appointment.getEndEpochSecond(),
+                    appointment.getCustomerID(), appointment.getUserID(), appointment.getContactID());
+            AppointmentSearchIndex.put(appointmentID, appointment.getAppointmentTitle(),
+                    AppointmentDescriptions.cachedOrElse(appointmentID, appointment.getAppointmentDescription()),
+                    appointment.getAppointmentLocation(), appointment.getStartDateTime());
+            CustomerAppointmentFilter.add(appointment.getCustomerID());
+        }
+        for (int appointmentID : deletedIDs) {
+            remove(appointmentID);
+            AppointmentIntervalIndex.remove(appointmentID);
+            AppointmentSearchIndex.remove(appointmentID);
+        }
+    }
+
+    private static void clear() {
+        byID.clear();
+        byCustomer.clear();
+        byContact.clear();
+        byUser.clear();
+        byType.clear();
+        byStart.clear();
+    }
+
+    private static void add(Appointment appointment) {
+        int appointmentID = appointment.getAppointmentID();
+        byID.put(appointmentID, appointment);
+        byCustomer.computeIfAbsent(appointment.getCustomerID(), key -> new HashSet<>()).add(appointmentID);
+        byContact.computeIfAbsent(appointment.getContactID(), key -> new HashSet<>()).add(appointmentID);
+        byUser.computeIfAbsent(appointment.getUserID(), key -> new HashSet<>()).add(appointmentID);
+        byType.computeIfAbsent(appointment.getAppointmentType(), key -> new HashSet<>()).add(appointmentID);
+        byStart.add(appointment);
+    }
+
+    private static <K> void unindex(Map<K, Set<Integer>> index, K key, int appointmentID) {
+        Set<Integer> ids = index.get(key);
+        if (ids != null) {
+            ids.remove(appointmentID);
+            if (ids.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    private static List<Appointment> lookup(Set<Integer> ids) {
+        List<Appointment> result = new ArrayList<>();
+        if (ids != null) {
+            for (int appointmentID : ids) {
+                result.add(byID.get(appointmentID));
+            }
+            result.sort(BY_START);
+        }
+        return result;
+    }
+
+    /**
+     * Returns a stand-in appointment at a (start, ID) position, used to seek in the sorted index.
+     */
+    private static Appointment probe(LocalDateTime start, int appointmentID) {
+        return new Appointment(appointmentID, null, null, null, null, Appointment.toEpochSecond(start), 0, 0, 0, 0) { };
+    }
+}
@@ -0,0 +1,191 @@
+package Database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A change log shared by every client of the database, so each one learns which rows the others wrote without
+ * reloading tables.
+ * <p>
+ * The write paths queue a change_log row in the same unit of work as the write itself with
+ * {@link #record(UnitOfWork, String, int, String)}, so the entry exists exactly when the change does. Each client tails
+ * the log from a background thread with an indexed range query on Change_ID, and hands the affected IDs to the
+ * in-memory copies that hold them: the AppointmentStore and the CustomerNameIndex re-read only those rows. Entries this
+ * client wrote itself are skipped, since its write paths already updated its copies.
+ * <p>
+ * Change_IDs are assigned when a row is inserted but become visible when its transaction commits, so a lower ID can
+ * appear after a higher one. The cursor only moves past an ID once it has been seen; a gap that stays open for longer
+ * than the gap timeout belongs to a rolled back transaction and is skipped.
+ * <p>
+ * The change_log table is created by sql/change_feed.sql; the client does not create it.
+ */
+public class ChangeFeed {
+
+    /**
+     * The operation recorded for a new row.
+     */
+    public static final String INSERT = "INSERT";
+
+    /**
+     * The operation recorded for an updated row.
+     */
+    public static final String UPDATE = "UPDATE";
+
+    /**
+     * The operation recorded for a deleted row.
+     */
+    public static final String DELETE = "DELETE";
+
+    private static final long POLL_INTERVAL_MILLIS = 2_000;
+    private static final long GAP_TIMEOUT_MILLIS = 10_000;
+    private static final int BATCH_SIZE = 500;
+    private static final int RETENTION_HOURS = 24;
+    private static final String CLIENT_ID = UUID.randomUUID().toString();
+
+    private static ScheduledExecutorService poller = null;
+    private static long cursor = 0;
+    private static final Set<Long> seenAboveCursor = new HashSet<>();
+    private static long gapOpenedAt = 0;
+
+    /**
+     * Queues a change_log entry in the unit of work that makes the change.
+     *
+     * @param work      the unit of work making the change
+     * @param tableName the table that is changed
+     * @param rowID     the ID of the changed row
+     * @param operation INSERT, UPDATE or DELETE
+     */
+    public static void record(UnitOfWork work, String tableName, int rowID, String operation) {
+        work.addLast("INSERT INTO change_log (Table_Name, Row_ID, Operation, Client_ID) VALUES (?, ?, ?, ?)",
+                tableName, rowID, operation, CLIENT_ID);
+    }
+
+    /**
+     * Positions the cursor at the end of the log and starts tailing it.
+     * Changes made before this call are left to the full loads of the in-memory copies.
+     *
+     * @throws SQLException if there is an error reading from or writing to the database
+     */
+    public static synchronized void start() throws SQLException {
+        if (poller != null) {
+            return;
+        }
+        try (Connection connection = JDBC.getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "DELETE FROM change_log WHERE Changed_At < CURRENT_TIMESTAMP - INTERVAL " + RETENTION_HOURS + " HOUR")) {
+                statement.executeUpdate();
+            }
+            try (PreparedStatement statement = connection.prepareStatement("SELECT COALESCE(MAX(Change_ID), 0) FROM change_log");
+                 ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                cursor = resultSet.getLong(1);
+            }
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "change-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(() -> {
+            try {
+                poll();
+            } catch (SQLException e) {
+                System.out.println("Error:" + e.getMessage());
+            }
+        }, POLL_INTERVAL_MILLIS, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops tailing the log.
+     */
+    public static synchronized void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+            poller = null;
+        }
+    }
+
+    /**
+     * Reads the entries after the cursor and applies the ones written by other clients.
+     *
+     * @throws SQLException if there is an error reading from the database
+     */
+    static synchronized void poll() throws SQLException {
+        Set<Integer> appointmentIDs = new LinkedHashSet<>();
+        Set<Integer> customerIDs = new LinkedHashSet<>();
+        List<Long> read = new ArrayList<>();
+
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT Change_ID, Table_Name, Row_ID, Client_ID FROM change_log "
+                     + "WHERE Change_ID > ? ORDER BY Change_ID LIMIT ?")) {
+            statement.setLong(1, cursor);
+            statement.setInt(2, BATCH_SIZE);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    long changeID = resultSet.getLong("Change_ID");
+                    if (seenAboveCursor.contains(changeID)) {
+                        continue;
+                    }
+                    read.add(changeID);
+                    if (CLIENT_ID.equals(resultSet.getString("Client_ID"))) {
+                        continue;
+                    }
+                    String tableName = resultSet.getString("Table_Name");
+                    int rowID = resultSet.getInt("Row_ID");
+                    if (tableName.equals("customers")) {
+                        customerIDs.add(rowID);
+                    } else {
+                        // appointments and both subtype tables are keyed by the appointment ID
+                        appointmentIDs.add(rowID);
+                    }
+                }
+            }
+        }
+
+        if (!appointmentIDs.isEmpty()) {
+            AppointmentStore.applyChanges(appointmentIDs);
+        }
+        if (!customerIDs.isEmpty()) {
+            CustomerNameIndex.applyChanges(customerIDs);
+        }
+        seenAboveCursor.addAll(read);
+        advanceCursor();
+    }
+
+    /**
+     * Moves the cursor over every ID seen in sequence, and over a gap that has been open for too long.
+     */
+    private static void advanceCursor() {
+        while (true) {
+            while (seenAboveCursor.remove(cursor + 1)) {
+                cursor++;
+            }
+            if (seenAboveCursor.isEmpty()) {
+                gapOpenedAt = 0;
+                return;
+            }
+            long now = System.currentTimeMillis();
+            if (gapOpenedAt == 0) {
+                gapOpenedAt = now;
+                return;
+            }
+            if (now - gapOpenedAt < GAP_TIMEOUT_MILLIS) {
+                return;
+            }
+            // the missing ID never committed; skip it and start timing the next gap afresh
+            cursor++;
+            gapOpenedAt = 0;
+        }
+    }
+}
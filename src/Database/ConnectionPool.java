@@ -0,0 +1,503 @@
+package Database;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * A bounded pool of database connections.
+ * <p>
+ * Connections handed out by the pool are proxies; closing one returns the physical connection to the pool instead of
+ * closing the socket. Idle connections are validated on borrow, evicted after sitting idle past the idle timeout, and
+ * connections held longer than the leak threshold are reported together with the stack trace of the borrower.
+ * <p>
+ * Each physical connection keeps a {@link StatementCache}, so the same SQL text is only prepared once per connection.
+ * Any statement a borrower leaves open is closed when the connection is returned.
+ */
+public class ConnectionPool implements DataSource {
+
+    /**
+     * Connections used within this window are assumed to still be alive and are not validated on borrow.
+     */
+    private static final long VALIDATION_BYPASS_MILLIS = 500;
+
+    private final String jdbcUrl;
+    private final String userName;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowedConnections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final Semaphore permits;
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder borrowWaitNanos = new LongAdder();
+    private final AtomicLong maxBorrowWaitNanos = new AtomicLong();
+    private final LongAdder borrowTimeouts = new LongAdder();
+    private final LongAdder leaksDetected = new LongAdder();
+    private final LongAdder connectionsCreated = new LongAdder();
+    private final LongAdder connectionsEvicted = new LongAdder();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    private final LongAdder statementCacheEvictions = new LongAdder();
+
+    /**
+     * Creates a pool and opens the minimum number of connections.
+     *
+     * @param jdbcUrl                  the JDBC URL of the database
+     * @param userName                 the database user name
+     * @param password                 the database password
+     * @param minSize                  the number of connections kept open even when idle
+     * @param maxSize                  the maximum number of connections open at once
+     * @param borrowTimeoutMillis      how long a borrower waits for a free connection before failing
+     * @param idleTimeoutMillis        how long a connection above the minimum may sit idle before it is closed
+     * @param leakThresholdMillis      how long a connection may be held before it is reported as a possible leak
+     * @param validationTimeoutSeconds the timeout for the liveness check run on borrow
+     * @param statementCacheSize       the number of prepared statements cached per connection
+     * @throws SQLException if the initial connections cannot be opened
+     */
+    public ConnectionPool(String jdbcUrl, String userName, String password, int minSize, int maxSize, long borrowTimeoutMillis,
+                          long idleTimeoutMillis, long leakThresholdMillis, int validationTimeoutSeconds, int statementCacheSize) throws SQLException {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min " + minSize + ", max " + maxSize);
+        }
+        this.jdbcUrl = jdbcUrl;
+        this.userName = userName;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        for (int i = 0; i < minSize; i++) {
+            idleConnections.offerLast(create());
+        }
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMillis, leakThresholdMillis) / 2);
+        housekeeper.scheduleWithFixedDelay(this::houseKeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool, waiting up to the borrow timeout for one to become free.
+     * Closing the returned connection gives it back to the pool.
+     *
+     * @return a pooled connection
+     * @throws SQLException if the pool is closed, no connection frees up in time, or a new connection cannot be opened
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long begin = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                borrowTimeouts.increment();
+                throw new SQLTransientConnectionException("Timed out after " + borrowTimeoutMillis + "ms waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idleConnections.pollFirst()) != null && !pooled.isAlive()) {
+                discard(pooled);
+            }
+            if (pooled == null) {
+                pooled = create();
+            }
+            borrowedConnections.add(pooled);
+            recordBorrowWait(System.nanoTime() - begin);
+            return pooled.borrow();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Not supported; the pool always connects with the credentials it was created with.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Connection pool does not support per-call credentials");
+    }
+
+    /**
+     * Closes every idle connection and stops the housekeeper. Borrowed connections are closed when they are returned.
+     */
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idleConnections.pollFirst()) != null) {
+            discard(pooled);
+        }
+    }
+
+    /**
+     * Returns the number of connections currently borrowed.
+     *
+     * @return the number of connections currently borrowed
+     */
+    public int getActiveConnections() { return borrowedConnections.size(); }
+
+    /**
+     * Returns the number of connections sitting idle in the pool.
+     *
+     * @return the number of idle connections
+     */
+    public int getIdleConnections() { return idleConnections.size(); }
+
+    /**
+     * Returns the number of physical connections currently open.
+     *
+     * @return the number of open connections
+     */
+    public int getTotalConnections() { return totalConnections.get(); }
+
+    /**
+     * Returns the number of successful borrows since the pool was created.
+     *
+     * @return the number of successful borrows
+     */
+    public long getBorrowCount() { return borrowCount.sum(); }
+
+    /**
+     * Returns the average time a borrower waited for a connection.
+     *
+     * @return the average borrow wait in milliseconds
+     */
+    public double getAverageBorrowWaitMillis() {
+        long count = borrowCount.sum();
+        return count == 0 ? 0 : borrowWaitNanos.sum() / (count * 1_000_000.0);
+    }
+
+    /**
+     * Returns the longest time a borrower waited for a connection.
+     *
+     * @return the longest borrow wait in milliseconds
+     */
+    public double getMaxBorrowWaitMillis() { return maxBorrowWaitNanos.get() / 1_000_000.0; }
+
+    /**
+     * Returns the number of borrows that gave up waiting for a free connection.
+     *
+     * @return the number of borrow timeouts
+     */
+    public long getBorrowTimeouts() { return borrowTimeouts.sum(); }
+
+    /**
+     * Returns the number of connections reported as possible leaks.
+     *
+     * @return the number of detected leaks
+     */
+    public long getLeaksDetected() { return leaksDetected.sum(); }
+
+    /**
+     * Returns the number of physical connections opened since the pool was created.
+     *
+     * @return the number of connections created
+     */
+    public long getConnectionsCreated() { return connectionsCreated.sum(); }
+
+    /**
+     * Returns the number of connections closed because they were idle too long or failed validation.
+     *
+     * @return the number of evicted connections
+     */
+    public long getConnectionsEvicted() { return connectionsEvicted.sum(); }
+
+    /**
+     * Returns the number of prepareStatement calls answered from a statement cache.
+     *
+     * @return the number of statement cache hits
+     */
+    public long getStatementCacheHits() { return statementCacheHits.sum(); }
+
+    /**
+     * Returns the number of prepareStatement calls that had to prepare a new statement.
+     *
+     * @return the number of statement cache misses
+     */
+    public long getStatementCacheMisses() { return statementCacheMisses.sum(); }
+
+    /**
+     * Returns the number of cached statements closed to make room for newer ones.
+     *
+     * @return the number of statement cache evictions
+     */
+    public long getStatementCacheEvictions() { return statementCacheEvictions.sum(); }
+
+    /**
+     * Returns the fraction of prepareStatement calls answered from a statement cache.
+     *
+     * @return the statement cache hit ratio, between 0 and 1
+     */
+    public double getStatementCacheHitRatio() {
+        long hits = statementCacheHits.sum();
+        long total = hits + statementCacheMisses.sum();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConnectionPool[active=%d, idle=%d, total=%d/%d, borrows=%d, avgWait=%.2fms, maxWait=%.2fms, timeouts=%d, leaks=%d, "
+                        + "statementCacheHits=%d, statementCacheMisses=%d]",
+                getActiveConnections(), getIdleConnections(), getTotalConnections(), maxSize, getBorrowCount(),
+                getAverageBorrowWaitMillis(), getMaxBorrowWaitMillis(), getBorrowTimeouts(), getLeaksDetected(),
+                getStatementCacheHits(), getStatementCacheMisses());
+    }
+
+    private PooledConnection create() throws SQLException {
+        Connection connection = DriverManager.getConnection(jdbcUrl, userName, password);
+        totalConnections.incrementAndGet();
+        connectionsCreated.increment();
+        return new PooledConnection(connection);
+    }
+
+    private void discard(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        pooled.statementCache.closeAll();
+        try {
+            pooled.connection.close();
+        } catch (SQLException e) {
+            System.out.println("Error:" + e.getMessage());
+        }
+    }
+
+    private void release(PooledConnection pooled) {
+        borrowedConnections.remove(pooled);
+        if (!closed && pooled.reset()) {
+            idleConnections.offerFirst(pooled);
+        } else {
+            discard(pooled);
+        }
+        permits.release();
+    }
+
+    private void recordBorrowWait(long nanos) {
+        borrowCount.increment();
+        borrowWaitNanos.add(nanos);
+        maxBorrowWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Evicts connections idle past the idle timeout, reports connections held past the leak threshold, and tops the
+     * pool back up to its minimum size.
+     */
+    private void houseKeep() {
+        long now = System.currentTimeMillis();
+
+        for (PooledConnection pooled : idleConnections) {
+            if (totalConnections.get() <= minSize) {
+                break;
+            }
+            if (now - pooled.lastUsedAt > idleTimeoutMillis && idleConnections.remove(pooled)) {
+                connectionsEvicted.increment();
+                discard(pooled);
+            }
+        }
+
+        for (PooledConnection pooled : borrowedConnections) {
+            if (!pooled.leakReported && now - pooled.borrowedAt > leakThresholdMillis) {
+                pooled.leakReported = true;
+                leaksDetected.increment();
+                System.out.println("Possible connection leak: connection held for " + (now - pooled.borrowedAt) + "ms");
+                if (pooled.borrowSite != null) {
+                    pooled.borrowSite.printStackTrace(System.out);
+                }
+            }
+        }
+
+        while (!closed && totalConnections.get() < minSize) {
+            try {
+                idleConnections.offerLast(create());
+            } catch (SQLException e) {
+                System.out.println("Error:" + e.getMessage());
+                break;
+            }
+        }
+    }
+
+    /**
+     * A physical connection owned by the pool, along with the bookkeeping for its current borrow.
+     */
+    private class PooledConnection {
+        private final Connection connection;
+        private final StatementCache statementCache;
+        private final List<Statement> openStatements = new ArrayList<>();
+        private volatile long lastUsedAt = System.currentTimeMillis();
+        private volatile long borrowedAt;
+        private volatile Throwable borrowSite;
+        private volatile boolean leakReported;
+
+        private PooledConnection(Connection connection) {
+            this.connection = connection;
+            this.statementCache = new StatementCache(connection, statementCacheSize, statementCacheHits, statementCacheMisses, statementCacheEvictions);
+        }
+
+        private boolean isAlive() {
+            if (System.currentTimeMillis() - lastUsedAt < VALIDATION_BYPASS_MILLIS) {
+                return true;
+            }
+            try {
+                if (connection.isValid(validationTimeoutSeconds)) {
+                    return true;
+                }
+            } catch (SQLException ignored) {
+                // treated as dead below
+            }
+            connectionsEvicted.increment();
+            return false;
+        }
+
+        private Connection borrow() {
+            borrowedAt = System.currentTimeMillis();
+            borrowSite = new Throwable("Connection borrowed here");
+            leakReported = false;
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, new Handle());
+        }
+
+        /**
+         * Closes statements left open by the last borrower and restores the default connection state.
+         *
+         * @return true if the connection can be reused, false if it should be discarded
+         */
+        private boolean reset() {
+            lastUsedAt = System.currentTimeMillis();
+            try {
+                for (Statement statement : openStatements) {
+                    statement.close();
+                }
+                openStatements.clear();
+                statementCache.releaseAll();
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                    connection.setAutoCommit(true);
+                }
+                return !connection.isClosed();
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        /**
+         * The proxy handed to one borrower. After close() it rejects every call, so a stale reference can never reach
+         * a connection that has since been lent to someone else.
+         */
+        private class Handle implements InvocationHandler {
+            private boolean released;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if (!released) {
+                            released = true;
+                            release(PooledConnection.this);
+                        }
+                        return null;
+                    case "isClosed":
+                        return released || connection.isClosed();
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "Pooled" + connection;
+                    default:
+                        break;
+                }
+                if (released) {
+                    throw new SQLException("Connection is closed");
+                }
+                if (method.getName().equals("prepareStatement") && args.length == 1) {
+                    PreparedStatement statement = statementCache.prepare((String) args[0], (Connection) proxy);
+                    openStatements.add(statement);
+                    return statement;
+                }
+                try {
+                    Object result = method.invoke(connection, args);
+                    if (result instanceof Statement) {
+                        openStatements.add((Statement) result);
+                    }
+                    return result;
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        }
+    }
+
+    @Override
+    public PrintWriter getLogWriter() { return null; }
+
+    @Override
+    public void setLogWriter(PrintWriter out) { }
+
+    @Override
+    public void setLoginTimeout(int seconds) { }
+
+    @Override
+    public int getLoginTimeout() { return 0; }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) { return iface.isInstance(this); }
+}
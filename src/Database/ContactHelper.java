@@ -4,6 +4,7 @@ import Models.Contact;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -13,6 +14,8 @@ import java.sql.SQLException;
  */
 public class ContactHelper {
 
+    private static final NameDictionary contactNames = new NameDictionary("contacts", "Contact_ID", "Contact_Name", 1000);
+
     /**
      * Retrieves all contacts in the database.
      *
@@ -22,56 +25,55 @@ public class ContactHelper {
     public static ObservableList<Contact> fetchContacts() throws SQLException {
         ObservableList<Contact> contactsList = FXCollections.observableArrayList();
 
-        PreparedStatement statement = JDBC.getConnection().prepareStatement("SELECT * FROM contacts ");
-
-        ResultSet resultSet = statement.executeQuery();
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT * FROM contacts ")) {
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    int contactID = resultSet.getInt("Contact_ID");
+                    String contactName = resultSet.getString("Contact_Name");
+                    String email = resultSet.getString("Email");
 
-        while (resultSet.next()) {
-            int contactID = resultSet.getInt("Contact_ID");
-            String contactName = resultSet.getString("Contact_Name");
-            String email = resultSet.getString("Email");
+                    Contact contact = new Contact(contactID, contactName, email);
+                    contactsList.add(contact);
+                    contactNames.put(contactID, contactName);
+                }
 
-            Contact contact = new Contact(contactID, contactName, email);
-            contactsList.add(contact);
+                return contactsList;
+            }
         }
-
-        return contactsList;
     }
 
     /**
      * Retrieves the contact ID for the given contact name.
+     * Answered from the lookup cache once the pair has been seen.
      *
      * @param contactName The name of the contact to retrieve the ID for.
      * @return The contact ID for the given contact name.
      * @throws SQLException if there is an error retrieving data from the database
      */
     public static int getContactIDByName(String contactName) throws SQLException {
-        PreparedStatement statement = JDBC.getConnection().prepareStatement("SELECT Contact_ID FROM contacts WHERE Contact_Name = ?");
-        statement.setString(1, contactName);
-        ResultSet resultSet = statement.executeQuery();
-        if (resultSet.next()) {
-            return resultSet.getInt("Contact_ID");
-        } else {
-            throw new SQLException(contactName + " not found");
-        }
+        return contactNames.getID(contactName);
     }
 
     /**
      * Retrieves the contact name for the given contact ID.
+     * Answered from the lookup cache once the pair has been seen.
      *
      * @param contactID The ID of the contact to retrieve the name for.
      * @return The contact name for the given contact ID.
      * @throws SQLException if there is an error retrieving data from the database
      */
     public static String getContactNameByID(int contactID) throws SQLException {
-        PreparedStatement statement = JDBC.getConnection().prepareStatement("SELECT Contact_Name FROM contacts WHERE Contact_ID = ?");
-        statement.setInt(1, contactID);
-        ResultSet resultSet = statement.executeQuery();
-        if (resultSet.next()) {
-            return resultSet.getString("Contact_Name");
-        } else {
-            throw new SQLException(contactID + " not found");
-        }
+        return contactNames.getName(contactID);
+    }
+
+    /**
+     * Loads contact IDs and names into the lookup cache so that forms can resolve them without a query.
+     *
+     * @throws SQLException if there is an error retrieving data from the database
+     */
+    public static void warmNameCache() throws SQLException {
+        contactNames.warm();
     }
 
 }
@@ -0,0 +1,71 @@
+package Database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.BitSet;
+
+/**
+ * An in-memory bitmap of the customer IDs that have at least one appointment.
+ * <p>
+ * A clear bit means the customer has no appointments, so the question never has to reach the database. A set bit only
+ * means the customer may have appointments: bits are set on every appointment write but never cleared when
+ * appointments are deleted, so positives are confirmed with an EXISTS query. The bitmap is reloaded from the
+ * database once it is older than the refresh interval, which picks up appointments written by other clients.
+ */
+public class CustomerAppointmentFilter {
+
+    private static final long REFRESH_INTERVAL_MILLIS = 300_000;
+
+    private static final BitSet customers = new BitSet();
+    private static long loadedAt = 0;
+    private static boolean loaded = false;
+
+    /**
+     * Returns whether a customer is known to have no appointments, loading the bitmap first if it is missing or stale.
+     *
+     * @param customerID the ID of the customer
+     * @return true if the customer certainly has no appointments, false if they may have some
+     * @throws SQLException if there is an error retrieving data from the database
+     */
+    public static synchronized boolean definitelyHasNone(int customerID) throws SQLException {
+        if (!loaded || System.currentTimeMillis() - loadedAt > REFRESH_INTERVAL_MILLIS) {
+            load();
+        }
+        return !customers.get(customerID);
+    }
+
+    /**
+     * Records that a customer has an appointment. Called by the appointment write paths.
+     *
+     * @param customerID the ID of the customer
+     */
+    public static synchronized void add(int customerID) {
+        customers.set(customerID);
+    }
+
+    /**
+     * Discards the bitmap so the next check reloads it.
+     */
+    public static synchronized void invalidate() {
+        customers.clear();
+        loaded = false;
+    }
+
+    private static void load() throws SQLException {
+        BitSet loadedCustomers = new BitSet();
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT DISTINCT Customer_ID FROM appointments")) {
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    loadedCustomers.set(resultSet.getInt("Customer_ID"));
+                }
+            }
+        }
+        customers.clear();
+        customers.or(loadedCustomers);
+        loadedAt = System.currentTimeMillis();
+        loaded = true;
+    }
+}
@@ -1,47 +1,102 @@
 package Database;
 
+import Models.Country;
 import Models.Customer;
+import Models.Division;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * This class provides helper methods to interact with the customer table in the database
  */
 public class CustomerHelper {
 
+    private static final IdAllocator customerIDs = new IdAllocator("customers", "Customer_ID", 20);
+    private static final NameDictionary customerNames = new NameDictionary("customers", "Customer_ID", "Customer_Name", 5000);
+    private static final int ID_BATCH_SIZE = 50;
+
+    /**
+     * Base query for every customer fetch. Division and country names are resolved from the GeographyCache rather than
+     * joined in.
+     */
+    private static final String SELECT_CUSTOMERS = "SELECT Customer_ID, Customer_Name, Address, Postal_Code, Phone, Division_ID FROM customers ";
+
     /**
-     * Fetches all customer data from the database, including division and country data.
+     * Fetches all customer data from the database, including division and country names.
      * @return an ObservableList of Customer objects containing all customer data
      * @throws SQLException if there is an error retrieving data from the database
      */
     public static ObservableList<Customer> fetchCustomers() throws SQLException {
-        ObservableList<Customer> customerList = FXCollections.observableArrayList();
-
-        PreparedStatement statement = JDBC.getConnection().prepareStatement("SELECT * FROM customers JOIN first_level_divisions ON customers.Division_ID = first_level_divisions.Division_ID "
-                + "JOIN countries ON first_level_divisions.Country_ID = countries.Country_ID ORDER BY Customer_ID ");
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_CUSTOMERS + "ORDER BY Customer_ID ")) {
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return mapCustomers(resultSet);
+            }
+        }
+    }
 
-        ResultSet resultSet = statement.executeQuery();
+    /**
+     * Maps every row of a result set produced by SELECT_CUSTOMERS to a Customer.
+     * @param resultSet the result set to read
+     * @return an ObservableList of Customer objects
+     * @throws SQLException if there is an error retrieving data from the database
+     */
+    private static ObservableList<Customer> mapCustomers(ResultSet resultSet) throws SQLException {
+        ObservableList<Customer> customerList = FXCollections.observableArrayList();
 
         while (resultSet.next()) {
             int customerID = resultSet.getInt("Customer_ID");
             String customerName = resultSet.getString("Customer_Name");
             String customerPhoneNumber = resultSet.getString("Phone");
             String customerAddress = resultSet.getString("Address");
-            String customerDivision = resultSet.getString("Division");
-            String customerCountry = resultSet.getString("Country");
+            int customerDivisionID = resultSet.getInt("Division_ID");
+            Division division = GeographyCache.getDivision(customerDivisionID);
+            Country country = division == null ? null : GeographyCache.getCountry(division.getCountryID());
+            String customerDivision = division == null ? null : division.getDivisionName();
+            String customerCountry = country == null ? null : country.getCountryName();
             String customerPostalCode = resultSet.getString("Postal_Code");
 
-            Customer customer = new Customer(customerID, customerName, customerPhoneNumber, customerAddress, customerDivision, customerCountry, customerPostalCode);
+            Customer customer = new Customer(customerID, customerName, customerPhoneNumber, customerAddress, customerDivision, customerCountry, customerPostalCode, customerDivisionID);
             customerList.add(customer);
+            customerNames.put(customerID, customerName);
         }
 
         return customerList;
     }
 
+    /**
+     * Reads the customers changed at or after a point in time. Used by DeltaSync to refresh the CustomerNameIndex.
+     * @param connection the connection to read with
+     * @param since the watermark of the previous sync
+     * @return the customers inserted or updated since then
+     * @throws SQLException if there is an error retrieving data from the database
+     */
+    static List<Customer> readCustomersChangedSince(Connection connection, Timestamp since) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(SELECT_CUSTOMERS + "WHERE Last_Update >= ?")) {
+            statement.setTimestamp(1, since);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return mapCustomers(resultSet);
+            }
+        }
+    }
+
+    /**
+     * Drops a customer deleted by another client from the name lookup cache.
+     * @param customerID the ID of the deleted customer
+     */
+    static void forgetCustomerName(int customerID) {
+        customerNames.remove(customerID);
+    }
+
     /**
      * Creates a new customer in the database.
      * @param customerID the ID for the new customer
@@ -55,16 +110,15 @@ public class CustomerHelper {
     public static void createCustomer(int customerID, String customerName, String customerAddress, String customerPostalCode,
                                       String customerPhoneNumber, int customerDivisionID) throws SQLException {
 
-        PreparedStatement statement = JDBC.getConnection().prepareStatement("INSERT INTO customers VALUES(?, ?, ?, ?, ?, CURRENT_TIMESTAMP, 'user', CURRENT_TIMESTAMP , 'user', ?);");
-        statement.setInt(1, customerID);
-        statement.setString(2, customerName);
-        statement.setString(3, customerAddress);
-        statement.setString(4, customerPostalCode);
-        statement.setString(5, customerPhoneNumber);
-        statement.setInt(6, customerDivisionID);
-
-        statement.execute();
-
+        UnitOfWork work = new UnitOfWork();
+        work.add("INSERT INTO customers VALUES(?, ?, ?, ?, ?, CURRENT_TIMESTAMP, 'user', CURRENT_TIMESTAMP , 'user', ?);",
+                customerID, customerName, customerAddress, customerPostalCode, customerPhoneNumber, customerDivisionID);
+        ChangeFeed.record(work, "customers", customerID, ChangeFeed.INSERT);
+        work.afterCommit(() -> {
+            CustomerNameIndex.put(customerID, customerName, customerDivisionID);
+            customerNames.put(customerID, customerName);
+        });
+        work.commit();
     }
 
 
@@ -81,15 +135,15 @@ public class CustomerHelper {
     public static void editCustomer(int customerID, String customerName, String customerAddress, String customerPostalCode,
                                     String customerPhoneNumber, int customerDivisionID) throws SQLException {
 
-        PreparedStatement statement = JDBC.getConnection().prepareStatement("UPDATE customers SET Customer_Name = ?, Address = ?, Postal_Code = ?, Phone = ?, Division_ID = ?, Last_Update = CURRENT_TIMESTAMP WHERE Customer_ID = ?;");
-        statement.setString(1, customerName);
-        statement.setString(2, customerAddress);
-        statement.setString(3, customerPostalCode);
-        statement.setString(4, customerPhoneNumber);
-        statement.setInt(5, customerDivisionID);
-        statement.setInt(6, customerID);
-        statement.execute();
-
+        UnitOfWork work = new UnitOfWork();
+        work.add("UPDATE customers SET Customer_Name = ?, Address = ?, Postal_Code = ?, Phone = ?, Division_ID = ?, Last_Update = CURRENT_TIMESTAMP WHERE Customer_ID = ?;",
+                customerName, customerAddress, customerPostalCode, customerPhoneNumber, customerDivisionID, customerID);
+        ChangeFeed.record(work, "customers", customerID, ChangeFeed.UPDATE);
+        work.afterCommit(() -> {
+            CustomerNameIndex.put(customerID, customerName, customerDivisionID);
+            customerNames.put(customerID, customerName);
+        });
+        work.commit();
     }
 
     /**
@@ -98,91 +152,113 @@ public class CustomerHelper {
      * @throws SQLException if there is an error deleting data from the database
      */
     public static void deleteCustomer(int customerID) throws SQLException {
-        String sqlDC = "DELETE from customers WHERE Customer_ID = ?";
-        try (PreparedStatement psDC = JDBC.getConnection().prepareStatement(sqlDC)) {
-            psDC.setInt(1, customerID);
-            psDC.execute();
-        }
+        UnitOfWork work = new UnitOfWork();
+        work.add("DELETE from customers WHERE Customer_ID = ?", customerID);
+        DeltaSync.recordDelete(work, "customers", customerID);
+        ChangeFeed.record(work, "customers", customerID, ChangeFeed.DELETE);
+        work.afterCommit(() -> {
+            CustomerNameIndex.remove(customerID);
+            customerNames.remove(customerID);
+        });
+        work.commit();
     }
 
     /**
-     * Retrieves the highest ID currently in use for customers in the database.
-     * @return the highest ID currently in use for customers in the database
-     * @throws SQLException if there is an error retrieving data from the database
+     * Returns an unused ID for a new customer. IDs are reserved from the database in blocks, so most calls do not
+     * need a query.
+     *
+     * @return an unused ID for a new customer
+     * @throws SQLException if a new block of IDs cannot be reserved
      */
-    public static int maxID() throws SQLException {
-        int customerID = 0;
-        PreparedStatement statement = JDBC.getConnection().prepareStatement("SELECT MAX(Customer_ID) FROM customers");
-        ResultSet resultSet = statement.executeQuery();
-        if (resultSet.next()) {
-            customerID = resultSet.getInt(1) + 1;
-        }
-        return customerID;
+    public static int nextID() throws SQLException {
+        return customerIDs.next();
     }
 
     /**
      * Retrieves the ID of a customer with a given name from the database.
+     * Answered from the lookup cache once the pair has been seen.
      * @param customerName the name of the customer
      * @return the ID of the customer with the given name
      * @throws SQLException if there is an error retrieving data from the database.
      */
     public static int getCustomerIDByName(String customerName) throws SQLException {
-        PreparedStatement statement = JDBC.getConnection().prepareStatement("SELECT Customer_ID FROM customers WHERE Customer_Name = ?");
-        statement.setString(1, customerName);
-        ResultSet resultSet = statement.executeQuery();
-        if (resultSet.next()) {
-            return resultSet.getInt("Customer_ID");
-        } else {
-            throw new SQLException(customerName + " not found");
-        }
+        return customerNames.getID(customerName);
     }
 
     /**
      * Retrieves the name of a customer with a given ID from the database.
+     * Answered from the lookup cache once the pair has been seen.
      * @param customerID the ID of the customer
      * @return the name of the customer with the given ID
      * @throws SQLException if there is an error retrieving data from the database.
      */
     public static String getCustomerNameByID(int customerID) throws SQLException {
-        PreparedStatement statement = JDBC.getConnection().prepareStatement("SELECT Customer_Name FROM customers WHERE Customer_ID = ?");
-        statement.setInt(1, customerID);
-        ResultSet resultSet = statement.executeQuery();
-        if (resultSet.next()) {
-            return resultSet.getString("Customer_Name");
-        } else {
-            throw new SQLException(customerID + " not found");
-        }
+        return customerNames.getName(customerID);
     }
 
     /**
-     * Searches for customers by name in the database.
-     * @param customerName the name of the customer to search for
-     * @return an ObservableList of Customer objects containing all matching customers
+     * Searches for customers by name, tolerating typos. The search is answered by the CustomerNameIndex and only the
+     * matching customers are read from the database.
+     * @param customerName the name, or the start of any word of the name, of the customer to search for
+     * @return an ObservableList of Customer objects containing all matching customers, best match first
      * @throws SQLException if there is an error retrieving data from the database
      */
     public static ObservableList<Customer> searchCustomers(String customerName) throws SQLException {
-        ObservableList<Customer> customerList = FXCollections.observableArrayList();
-
-        PreparedStatement statement = JDBC.getConnection().prepareStatement("SELECT * FROM customers JOIN first_level_divisions ON customers.Division_ID = first_level_divisions.Division_ID "
-                + "JOIN countries ON first_level_divisions.Country_ID = countries.Country_ID WHERE Customer_Name LIKE ? ORDER BY Customer_ID ");
-        statement.setString(1, "%" + customerName + "%");
-
-        ResultSet resultSet = statement.executeQuery();
+        if (customerName.isBlank()) {
+            return fetchCustomers();
+        }
+        return fetchCustomersByIDs(CustomerNameIndex.search(customerName));
+    }
 
-        while (resultSet.next()) {
-            int customerID = resultSet.getInt("Customer_ID");
-            String customerNameResult = resultSet.getString("Customer_Name");
-            String customerPhoneNumber = resultSet.getString("Phone");
-            String customerAddress = resultSet.getString("Address");
-            String customerDivision = resultSet.getString("Division");
-            String customerCountry = resultSet.getString("Country");
-            String customerPostalCode = resultSet.getString("Postal_Code");
+    /**
+     * Fetches the customers with the given IDs, in the order the IDs are given. The IDs are looked up in batches of a
+     * fixed size, padding the last batch, so every batch reuses the same prepared statement.
+     * @param customerIDs the IDs of the customers to fetch
+     * @return an ObservableList of Customer objects
+     * @throws SQLException if there is an error retrieving data from the database
+     */
+    public static ObservableList<Customer> fetchCustomersByIDs(List<Integer> customerIDs) throws SQLException {
+        Map<Integer, Customer> byID = new HashMap<>();
+        if (!customerIDs.isEmpty()) {
+            StringBuilder sql = new StringBuilder(SELECT_CUSTOMERS).append("WHERE Customer_ID IN (?");
+            for (int i = 1; i < ID_BATCH_SIZE; i++) {
+                sql.append(", ?");
+            }
+            sql.append(")");
 
-            Customer customer = new Customer(customerID, customerNameResult, customerPhoneNumber, customerAddress, customerDivision, customerCountry, customerPostalCode);
-            customerList.add(customer);
+            try (Connection connection = JDBC.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                for (int first = 0; first < customerIDs.size(); first += ID_BATCH_SIZE) {
+                    for (int i = 0; i < ID_BATCH_SIZE; i++) {
+                        int index = Math.min(first + i, customerIDs.size() - 1);
+                        statement.setInt(i + 1, customerIDs.get(index));
+                    }
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        for (Customer customer : mapCustomers(resultSet)) {
+                            byID.put(customer.getCustomerID(), customer);
+                        }
+                    }
+                }
+            }
         }
 
+        ObservableList<Customer> customerList = FXCollections.observableArrayList();
+        for (int customerID : customerIDs) {
+            Customer customer = byID.get(customerID);
+            if (customer != null) {
+                customerList.add(customer);
+            }
+        }
         return customerList;
     }
 
+    /**
+     * Loads customer IDs and names into the lookup cache so that forms can resolve them without a query.
+     *
+     * @throws SQLException if there is an error retrieving data from the database
+     */
+    public static void warmNameCache() throws SQLException {
+        customerNames.warm();
+    }
+
 }
@@ -0,0 +1,410 @@
+package Database;
+
+import Models.Customer;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An in-memory compressed trie of customer names for type-ahead and typo-tolerant search.
+ * <p>
+ * Each name is inserted once for every word it contains, starting at that word, so "Daddy Warbucks" can be found by
+ * typing "dad" or "warb". A search walks the trie while computing one row of the Levenshtein matrix per character,
+ * which simulates a Levenshtein automaton for the query: a branch is abandoned as soon as every entry of its row is
+ * above the edit limit, so only a thin slice of the trie is visited. Any name with a prefix within the edit limit of
+ * the query matches.
+ * <p>
+ * The index also holds the division of each customer, which the AppointmentCube groups by. It seeds the
+ * ReportCounters division totals and moves each customer it adds, replaces or removes between them.
+ * <p>
+ * The index is built on first use and kept current by the write methods in CustomerHelper. Customers other clients
+ * write are merged in as the ChangeFeed reports them; as a backstop, once the index is older than the refresh
+ * interval the next search first merges in the Last_Update delta through DeltaSync.
+ */
+public class CustomerNameIndex {
+
+    private static final long REFRESH_INTERVAL_MILLIS = 300_000;
+
+    private static Node root = new Node("");
+    private static final Map<Integer, String> names = new HashMap<>();
+    private static final Map<Integer, Integer> divisions = new HashMap<>();
+    private static final DeltaSync sync = new DeltaSync("customers");
+    private static long loadedAt = 0;
+    private static boolean loaded = false;
+    // moved on by every change to the division map
+    private static long version = 0;
+
+    /**
+     * A trie node. The label is the run of characters on the edge leading to it; the IDs are the customers whose key
+     * ends here.
+     */
+    private static class Node {
+        private String label;
+        private final Map<Character, Node> children = new HashMap<>();
+        private final Set<Integer> ids = new HashSet<>();
+
+        private Node(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * Finds customers whose name, or any word in it, starts with the query or with something within a few typos of it.
+     * One typo is allowed for queries of three to five characters and two for longer ones.
+     * <p>
+     * Results are ranked by the number of edits needed, then by whether the whole name starts with the query, then by
+     * name.
+     *
+     * @param query the text typed so far
+     * @return the IDs of the matching customers, best match first
+     * @throws SQLException if the index has to be loaded and there is an error retrieving data from the database
+     */
+    public static synchronized List<Integer> search(String query) throws SQLException {
+        ensureLoaded();
+        String term = normalize(query).trim();
+        if (term.isEmpty()) {
+            List<Integer> all = new ArrayList<>(names.keySet());
+            all.sort((a, b) -> names.get(a).compareToIgnoreCase(names.get(b)));
+            return all;
+        }
+        int maxEdits = term.length() < 3 ? 0 : term.length() < 6 ? 1 : 2;
+
+        int[] firstRow = new int[term.length() + 1];
+        for (int i = 0; i < firstRow.length; i++) {
+            firstRow[i] = i;
+        }
+        Map<Integer, Integer> distances = new HashMap<>();
+        for (Node child : root.children.values()) {
+            walk(child, term, firstRow, Integer.MAX_VALUE, maxEdits, distances);
+        }
+
+        List<Integer> result = new ArrayList<>(distances.keySet());
+        result.sort((a, b) -> {
+            int byDistance = Integer.compare(distances.get(a), distances.get(b));
+            if (byDistance != 0) {
+                return byDistance;
+            }
+            boolean aStarts = normalize(names.get(a)).startsWith(term);
+            boolean bStarts = normalize(names.get(b)).startsWith(term);
+            if (aStarts != bStarts) {
+                return aStarts ? -1 : 1;
+            }
+            int byName = names.get(a).compareToIgnoreCase(names.get(b));
+            return byName != 0 ? byName : Integer.compare(a, b);
+        });
+        return result;
+    }
+
+    /**
+     * Returns a number that changes whenever a customer is added, replaced or removed, so results computed from the
+     * divisions can be cached until then. Read it before the divisions it is meant to cover.
+     *
+     * @return the version of the index
+     * @throws SQLException if the index has to be loaded and there is an error retrieving data from the database
+     */
+    static synchronized long version() throws SQLException {
+        ensureLoaded();
+        return version;
+    }
+
+    /**
+     * Returns the division each customer is in, as a table indexed by customer ID.
+     *
+     * @return the ID of each customer's division, or AppointmentColumns.NO_VALUE for IDs of no customer
+     * @throws SQLException if the index has to be loaded and there is an error retrieving data from the database
+     */
+    static synchronized int[] divisionsByCustomer() throws SQLException {
+        ensureLoaded();
+        int[] table = new int[divisions.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1];
+        Arrays.fill(table, AppointmentColumns.NO_VALUE);
+        divisions.forEach((customerID, divisionID) -> table[customerID] = divisionID);
+        return table;
+    }
+
+    /**
+     * Seeds the ReportCounters division totals. Holding the index's lock keeps out writes, which report their own
+     * deltas, until the totals are seeded.
+     *
+     * @throws SQLException if the index has to be loaded and there is an error retrieving data from the database
+     */
+    static synchronized void seedReportCounters() throws SQLException {
+        ensureLoaded();
+        Map<Integer, Integer> counts = new HashMap<>();
+        for (int divisionID : divisions.values()) {
+            counts.merge(divisionID, 1, Integer::sum);
+        }
+        ReportCounters.seedCustomers(counts);
+    }
+
+    /**
+     * Adds or replaces a customer in the index. Does nothing until the index has been loaded.
+     *
+     * @param customerID         the ID of the customer
+     * @param customerName       the name of the customer
+     * @param customerDivisionID the ID of the division of the customer
+     */
+    public static synchronized void put(int customerID, String customerName, int customerDivisionID) {
+        if (!loaded) {
+            return;
+        }
+        Integer previousDivisionID = drop(customerID);
+        add(customerID, customerName, customerDivisionID);
+        version++;
+        ReportCounters.customerMoved(previousDivisionID, customerDivisionID);
+    }
+
+    /**
+     * Removes a customer from the index.
+     *
+     * @param customerID the ID of the customer
+     */
+    public static synchronized void remove(int customerID) {
+        Integer previousDivisionID = drop(customerID);
+        if (previousDivisionID != null) {
+            version++;
+            ReportCounters.customerMoved(previousDivisionID, null);
+        }
+    }
+
+    /**
+     * Discards the index so the next search reloads it. The ReportCounters division totals are seeded again too.
+     */
+    public static synchronized void invalidate() {
+        root = new Node("");
+        names.clear();
+        divisions.clear();
+        sync.reset();
+        loaded = false;
+        ReportCounters.invalidate();
+    }
+
+    private static void ensureLoaded() throws SQLException {
+        if (!loaded) {
+            load();
+        } else if (System.currentTimeMillis() - loadedAt > REFRESH_INTERVAL_MILLIS) {
+            DeltaSync.Delta<Customer> delta = sync.pull(CustomerHelper::readCustomersChangedSince);
+            merge(delta.getChanged(), delta.getDeletedIDs());
+            loadedAt = System.currentTimeMillis();
+        }
+    }
+
+    private static void load() throws SQLException {
+        sync.start();
+        root = new Node("");
+        names.clear();
+        divisions.clear();
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT Customer_ID, Customer_Name, Division_ID FROM customers")) {
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    add(resultSet.getInt("Customer_ID"), resultSet.getString("Customer_Name"), resultSet.getInt("Division_ID"));
+                }
+            }
+        }
+        loadedAt = System.currentTimeMillis();
+        loaded = true;
+        version++;
+    }
+
+    /**
+     * Re-reads customers another client has changed, as reported by the ChangeFeed. Customers that no longer exist are
+     * removed. Does nothing until the index has been loaded.
+     *
+     * @param customerIDs the IDs of the changed customers
+     * @throws SQLException if there is an error retrieving data from the database
+     */
+    public static synchronized void applyChanges(Collection<Integer> customerIDs) throws SQLException {
+        if (!loaded) {
+            return;
+        }
+        List<Customer> changed = CustomerHelper.fetchCustomersByIDs(new ArrayList<>(customerIDs));
+        Set<Integer> deletedIDs = new HashSet<>(customerIDs);
+        for (Customer customer : changed) {
+            deletedIDs.remove(customer.getCustomerID());
+        }
+        merge(changed, deletedIDs);
+    }
+
+    private static void merge(Collection<Customer> changed, Collection<Integer> deletedIDs) {
+        for (Customer customer : changed) {
+            Integer previousDivisionID = drop(customer.getCustomerID());
+            add(customer.getCustomerID(), customer.getCustomerName(), customer.getCustomerDivisionID());
+            version++;
+            ReportCounters.customerMoved(previousDivisionID, customer.getCustomerDivisionID());
+        }
+        for (int customerID : deletedIDs) {
+            remove(customerID);
+            CustomerHelper.forgetCustomerName(customerID);
+        }
+    }
+
+    private static void add(int customerID, String customerName, int customerDivisionID) {
+        names.put(customerID, customerName);
+        divisions.put(customerID, customerDivisionID);
+        for (String key : keys(customerName)) {
+            insert(key, customerID);
+        }
+    }
+
+    /**
+     * Removes a customer from the trie and the division map.
+     *
+     * @return the division the customer was in, or null if it was not in the index
+     */
+    private static Integer drop(int customerID) {
+        String customerName = names.remove(customerID);
+        if (customerName == null) {
+            return null;
+        }
+        for (String key : keys(customerName)) {
+            remove(root, key, customerID);
+        }
+        return divisions.remove(customerID);
+    }
+
+    /**
+     * Returns the suffixes of a normalized name that start at a word.
+     */
+    private static Set<String> keys(String customerName) {
+        String name = normalize(customerName);
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != ' ' && (i == 0 || name.charAt(i - 1) == ' ')) {
+                keys.add(name.substring(i));
+            }
+        }
+        return keys;
+    }
+
+    private static void insert(String key, int customerID) {
+        Node node = root;
+        int position = 0;
+        while (position < key.length()) {
+            Node child = node.children.get(key.charAt(position));
+            if (child == null) {
+                Node leaf = new Node(key.substring(position));
+                leaf.ids.add(customerID);
+                node.children.put(key.charAt(position), leaf);
+                return;
+            }
+            int common = 0;
+            while (common < child.label.length() && position + common < key.length()
+                    && child.label.charAt(common) == key.charAt(position + common)) {
+                common++;
+            }
+            if (common < child.label.length()) {
+                // split the edge at the first difference
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.children.put(child.label.charAt(0), child);
+                node.children.put(middle.label.charAt(0), middle);
+                child = middle;
+            }
+            node = child;
+            position += common;
+        }
+        node.ids.add(customerID);
+    }
+
+    /**
+     * Removes an ID from the node for a key, then prunes nodes left empty and merges nodes left with a single child
+     * so the trie stays compressed.
+     *
+     * @return true if the node should be removed from its parent
+     */
+    private static boolean remove(Node node, String key, int customerID) {
+        if (key.isEmpty()) {
+            node.ids.remove(customerID);
+        } else {
+            Node child = node.children.get(key.charAt(0));
+            if (child == null || !key.startsWith(child.label)) {
+                return false;
+            }
+            if (remove(child, key.substring(child.label.length()), customerID)) {
+                node.children.remove(key.charAt(0));
+            }
+        }
+        if (node == root) {
+            return false;
+        }
+        if (node.ids.isEmpty() && node.children.size() == 1) {
+            Node only = node.children.values().iterator().next();
+            node.label = node.label + only.label;
+            node.ids.addAll(only.ids);
+            node.children.clear();
+            node.children.putAll(only.children);
+        }
+        return node.ids.isEmpty() && node.children.isEmpty();
+    }
+
+    /**
+     * Advances the Levenshtein rows through a node's label and records every customer below it whose key has a prefix
+     * within the edit limit.
+     *
+     * @param best the smallest distance between the query and any prefix on the path so far
+     */
+    private static void walk(Node node, String term, int[] previousRow, int best, int maxEdits, Map<Integer, Integer> distances) {
+        int[] row = previousRow;
+        for (int i = 0; i < node.label.length(); i++) {
+            row = nextRow(row, node.label.charAt(i), term);
+            best = Math.min(best, row[term.length()]);
+            if (minimum(row) > maxEdits) {
+                // no longer prefix can get closer; keep the subtree only if a shorter prefix already matched
+                if (best <= maxEdits) {
+                    collect(node, best, distances);
+                }
+                return;
+            }
+        }
+        if (best <= maxEdits) {
+            for (int customerID : node.ids) {
+                distances.merge(customerID, best, Math::min);
+            }
+        }
+        for (Node child : node.children.values()) {
+            walk(child, term, row, best, maxEdits, distances);
+        }
+    }
+
+    private static void collect(Node node, int distance, Map<Integer, Integer> distances) {
+        for (int customerID : node.ids) {
+            distances.merge(customerID, distance, Math::min);
+        }
+        for (Node child : node.children.values()) {
+            collect(child, distance, distances);
+        }
+    }
+
+    private static int[] nextRow(int[] previousRow, char c, String term) {
+        int[] row = new int[previousRow.length];
+        row[0] = previousRow[0] + 1;
+        for (int i = 1; i < row.length; i++) {
+            int substitution = previousRow[i - 1] + (term.charAt(i - 1) == c ? 0 : 1);
+            row[i] = Math.min(substitution, Math.min(row[i - 1] + 1, previousRow[i] + 1));
+        }
+        return row;
+    }
+
+    private static int minimum(int[] row) {
+        int minimum = row[0];
+        for (int value : row) {
+            minimum = Math.min(minimum, value);
+        }
+        return minimum;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,202 @@
+package Database;
+
+import javafx.application.Platform;
+
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs database helper calls off the JavaFX Application Thread.
+ * <p>
+ * Each call runs on its own virtual thread when the JVM supports them and on a pooled daemon thread otherwise; the
+ * connection pool already bounds how many can reach MySQL at once. Results are handed back on the JavaFX Application
+ * Thread. Calls that take longer than the query timeout fail with a TimeoutException, and cancelling a call interrupts
+ * the thread running it. The server also aborts any SELECT that runs past the same limit, see JDBC.
+ */
+public class DataService {
+
+    /**
+     * How long a call may run before its future fails and its result is discarded.
+     */
+    public static final int QUERY_TIMEOUT_SECONDS = 30;
+
+    private static final ExecutorService executor = createExecutor();
+
+    /**
+     * A call to one or more database helpers.
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    public interface Query<T> {
+        T call() throws SQLException;
+    }
+
+    /**
+     * Runs a query in the background.
+     *
+     * @param query the query to run
+     * @param <T>   the type of the result
+     * @return a future completed with the result on the background thread; cancelling it interrupts the query
+     */
+    public static <T> CompletableFuture<T> submit(Query<T> query) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> running = executor.submit(() -> {
+            try {
+                result.complete(query.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                running.cancel(true);
+            }
+        });
+        return result.orTimeout(QUERY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Runs a query in the background and passes its result to a callback on the JavaFX Application Thread. Errors are
+     * printed; cancelled queries are dropped silently.
+     *
+     * @param query     the query to run
+     * @param onSuccess the callback for the result
+     * @param <T>       the type of the result
+     * @return the future of the query, which can be used to cancel it
+     */
+    public static <T> CompletableFuture<T> load(Query<T> query, Consumer<? super T> onSuccess) {
+        return deliver(submit(query), onSuccess);
+    }
+
+    /**
+     * Runs a query in the background and passes its result or its error to a callback on the JavaFX Application
+     * Thread. Used for writes, whose failures the user has to be told about. Cancelled queries are dropped silently.
+     *
+     * @param query     the query to run
+     * @param onSuccess the callback for the result
+     * @param onFailure the callback for the error, unwrapped from its CompletionException
+     * @param <T>       the type of the result
+     * @return the future of the query
+     */
+    public static <T> CompletableFuture<T> load(Query<T> query, Consumer<? super T> onSuccess, Consumer<Throwable> onFailure) {
+        return deliver(submit(query), onSuccess, onFailure);
+    }
+
+    /**
+     * Passes the result of a future that is already running to a callback on the JavaFX Application Thread. Errors are
+     * printed; cancelled futures are dropped silently.
+     *
+     * @param future    the future to wait for
+     * @param onSuccess the callback for the result
+     * @param <T>       the type of the result
+     * @return the future
+     */
+    public static <T> CompletableFuture<T> deliver(CompletableFuture<T> future, Consumer<? super T> onSuccess) {
+        return deliver(future, onSuccess, error -> System.out.println("Error:" + error));
+    }
+
+    private static <T> CompletableFuture<T> deliver(CompletableFuture<T> future, Consumer<? super T> onSuccess, Consumer<Throwable> onFailure) {
+        future.whenComplete((value, error) -> Platform.runLater(() -> {
+            if (error == null) {
+                onSuccess.accept(value);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (!(cause instanceof CancellationException)) {
+                onFailure.accept(cause);
+            }
+        }));
+        return future;
+    }
+
+    /**
+     * Describes a failed write for an error alert.
+     *
+     * @param error the error passed to a failure callback
+     * @return a message telling the user what happened to their change
+     */
+    public static String describeFailure(Throwable error) {
+        if (error instanceof TimeoutException) {
+            return "The database did not respond in time. The change may still have been saved; check before trying again.";
+        }
+        return "The change could not be saved: " + error.getMessage();
+    }
+
+    /**
+     * Stops the background threads. Queries that are still running are interrupted.
+     */
+    public static void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor where available. It is looked up reflectively so the application
+     * still runs on JDKs without virtual threads, where it falls back to a cached pool of daemon threads.
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            return Executors.newCachedThreadPool(task -> {
+                Thread thread = new Thread(task, "data-service-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Delivers only the result of the most recent query. Starting a new query cancels the previous one, and a result
+     * that is superseded after it has been produced is still dropped before it reaches the UI. Used for loads that are
+     * triggered repeatedly, such as searches and view toggles. Must be used from the JavaFX Application Thread.
+     */
+    public static class Latest {
+
+        private int generation = 0;
+        private CompletableFuture<?> current = null;
+
+        /**
+         * Runs a query, superseding any query previously started through this object.
+         *
+         * @param query     the query to run
+         * @param onSuccess the callback for the result, only called if no newer query has been started
+         * @param <T>       the type of the result
+         * @return the future of the query
+         */
+        public <T> CompletableFuture<T> load(Query<T> query, Consumer<? super T> onSuccess) {
+            cancel();
+            int requested = ++generation;
+            CompletableFuture<T> future = DataService.load(query, value -> {
+                if (requested == generation) {
+                    onSuccess.accept(value);
+                }
+            });
+            current = future;
+            return future;
+        }
+
+        /**
+         * Cancels the current query, if any, and drops its result.
+         */
+        public void cancel() {
+            generation++;
+            if (current != null) {
+                current.cancel(true);
+                current = null;
+            }
+        }
+    }
+}
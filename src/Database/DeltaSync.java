@@ -0,0 +1,152 @@
+package Database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tracks the Last_Update watermark of one table so that in-memory copies of it can be refreshed with only the rows
+ * that changed.
+ * <p>
+ * A full load starts the sync by recording the server's clock. Each pull then reads the rows whose Last_Update is at or
+ * after the watermark, together with the IDs deleted since then, and moves the watermark to the server's clock at the
+ * start of the pull. Deletes leave no row behind, so the delete paths record a tombstone in the same transaction with
+ * {@link #recordDelete(UnitOfWork, String, int)}. The watermark is held back by a few seconds to catch transactions
+ * that stamped Last_Update before the previous pull but committed after it; rows read twice are simply merged again.
+ * <p>
+ * The tombstones table and the Last_Update indexes of the synced tables are not created here; they are part of the
+ * schema, see sql/delta_sync.sql.
+ */
+public class DeltaSync {
+
+    private static final int OVERLAP_SECONDS = 5;
+    private static final int TOMBSTONE_RETENTION_HOURS = 24;
+
+    private final String tableName;
+    private Timestamp watermark = null;
+
+    /**
+     * Reads the rows of a table changed at or after a point in time.
+     *
+     * @param <T> the type of the rows
+     */
+    @FunctionalInterface
+    public interface ChangedRows<T> {
+        List<T> read(Connection connection, Timestamp since) throws SQLException;
+    }
+
+    /**
+     * The rows changed and the IDs deleted since the previous pull.
+     *
+     * @param <T> the type of the rows
+     */
+    public static class Delta<T> {
+        private final List<T> changed;
+        private final List<Integer> deletedIDs;
+
+        private Delta(List<T> changed, List<Integer> deletedIDs) {
+            this.changed = changed;
+            this.deletedIDs = deletedIDs;
+        }
+
+        /**
+         * Returns the rows inserted or updated since the previous pull.
+         *
+         * @return the changed rows
+         */
+        public List<T> getChanged() { return changed; }
+
+        /**
+         * Returns the IDs of the rows deleted since the previous pull. Apply these after the changed rows.
+         *
+         * @return the deleted IDs
+         */
+        public List<Integer> getDeletedIDs() { return deletedIDs; }
+    }
+
+    /**
+     * Creates a sync for a table. Its primary key is the row ID recorded in tombstones.
+     *
+     * @param tableName the table to sync
+     */
+    public DeltaSync(String tableName) {
+        this.tableName = tableName;
+    }
+
+    /**
+     * Records the server's clock as the watermark. Call this right before a full load of the table, so that later
+     * pulls pick up everything changed from then on.
+     *
+     * @throws SQLException if there is an error reading from the database
+     */
+    public synchronized void start() throws SQLException {
+        try (Connection connection = JDBC.getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "DELETE FROM tombstones WHERE Deleted_At < CURRENT_TIMESTAMP - INTERVAL " + TOMBSTONE_RETENTION_HOURS + " HOUR")) {
+                statement.executeUpdate();
+            }
+            watermark = serverTime(connection);
+        }
+    }
+
+    /**
+     * Reads what changed since the watermark and advances it.
+     *
+     * @param reader reads the changed rows of the table
+     * @param <T>    the type of the rows
+     * @return the changed rows and deleted IDs
+     * @throws SQLException if there is an error reading from the database
+     */
+    public synchronized <T> Delta<T> pull(ChangedRows<T> reader) throws SQLException {
+        if (watermark == null) {
+            throw new IllegalStateException("Delta sync for " + tableName + " has not been started");
+        }
+        try (Connection connection = JDBC.getConnection()) {
+            Timestamp next = serverTime(connection);
+            List<T> changed = reader.read(connection, watermark);
+            List<Integer> deletedIDs = new ArrayList<>();
+            try (PreparedStatement statement = connection.prepareStatement("SELECT Row_ID FROM tombstones WHERE Table_Name = ? AND Deleted_At >= ?")) {
+                statement.setString(1, tableName);
+                statement.setTimestamp(2, watermark);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        deletedIDs.add(resultSet.getInt("Row_ID"));
+                    }
+                }
+            }
+            watermark = next;
+            return new Delta<>(changed, deletedIDs);
+        }
+    }
+
+    /**
+     * Forgets the watermark, so the next refresh has to start with a full load.
+     */
+    public synchronized void reset() {
+        watermark = null;
+    }
+
+    /**
+     * Queues a tombstone for a deleted row in the unit of work that deletes it.
+     *
+     * @param work      the unit of work deleting the row
+     * @param tableName the table the row is deleted from
+     * @param rowID     the ID of the deleted row
+     */
+    public static void recordDelete(UnitOfWork work, String tableName, int rowID) {
+        work.addLast("INSERT INTO tombstones (Table_Name, Row_ID) VALUES (?, ?) ON DUPLICATE KEY UPDATE Deleted_At = CURRENT_TIMESTAMP",
+                tableName, rowID);
+    }
+
+    private static Timestamp serverTime(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT CURRENT_TIMESTAMP - INTERVAL " + OVERLAP_SECONDS + " SECOND");
+             ResultSet resultSet = statement.executeQuery()) {
+            resultSet.next();
+            return resultSet.getTimestamp(1);
+        }
+    }
+}
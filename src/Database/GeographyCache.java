@@ -0,0 +1,143 @@
+package Database;
+
+import Models.Country;
+import Models.Division;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An in-memory copy of the countries and first-level divisions tables.
+ * <p>
+ * This reference data is read once, normally in the background while the login form is shown, and then answers every
+ * division and country lookup from hash maps. The loaded data is an immutable snapshot, so readers never lock. A
+ * division that is not in the snapshot, such as one added by another client after startup, triggers a single reload.
+ */
+public class GeographyCache {
+
+    private static volatile Snapshot snapshot = null;
+
+    /**
+     * The countries and divisions as read in one load.
+     */
+    private static class Snapshot {
+        private final Map<Integer, Country> countries;
+        private final Map<Integer, Division> divisions;
+        private final Map<Integer, List<Division>> divisionsByCountry;
+
+        private Snapshot(Map<Integer, Country> countries, Map<Integer, Division> divisions, Map<Integer, List<Division>> divisionsByCountry) {
+            this.countries = Map.copyOf(countries);
+            this.divisions = Map.copyOf(divisions);
+            Map<Integer, List<Division>> lists = new HashMap<>();
+            divisionsByCountry.forEach((countryID, list) -> lists.put(countryID, List.copyOf(list)));
+            this.divisionsByCountry = Map.copyOf(lists);
+        }
+    }
+
+    /**
+     * Loads the countries and divisions if they have not been loaded yet.
+     *
+     * @throws SQLException if there is an error retrieving data from the database
+     */
+    public static void load() throws SQLException {
+        snapshot();
+    }
+
+    /**
+     * Returns a division by ID.
+     *
+     * @param divisionID the ID of the division
+     * @return the division, or null if there is no division with that ID
+     * @throws SQLException if the data has to be loaded and there is an error retrieving data from the database
+     */
+    public static Division getDivision(int divisionID) throws SQLException {
+        Division division = snapshot().divisions.get(divisionID);
+        if (division == null) {
+            division = reload().divisions.get(divisionID);
+        }
+        return division;
+    }
+
+    /**
+     * Returns a country by ID.
+     *
+     * @param countryID the ID of the country
+     * @return the country, or null if there is no country with that ID
+     * @throws SQLException if the data has to be loaded and there is an error retrieving data from the database
+     */
+    public static Country getCountry(int countryID) throws SQLException {
+        return snapshot().countries.get(countryID);
+    }
+
+    /**
+     * Returns the country a division belongs to.
+     *
+     * @param divisionID the ID of the division
+     * @return the country, or null if there is no division with that ID
+     * @throws SQLException if the data has to be loaded and there is an error retrieving data from the database
+     */
+    public static Country getCountryOfDivision(int divisionID) throws SQLException {
+        Division division = getDivision(divisionID);
+        return division == null ? null : getCountry(division.getCountryID());
+    }
+
+    /**
+     * Returns the divisions of a country, in the order they are stored.
+     *
+     * @param countryID the ID of the country
+     * @return an unmodifiable list of the divisions of the country
+     * @throws SQLException if the data has to be loaded and there is an error retrieving data from the database
+     */
+    public static List<Division> getDivisions(int countryID) throws SQLException {
+        return snapshot().divisionsByCountry.getOrDefault(countryID, List.of());
+    }
+
+    private static Snapshot snapshot() throws SQLException {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (GeographyCache.class) {
+            if (snapshot == null) {
+                snapshot = read();
+            }
+            return snapshot;
+        }
+    }
+
+    private static synchronized Snapshot reload() throws SQLException {
+        snapshot = read();
+        return snapshot;
+    }
+
+    private static Snapshot read() throws SQLException {
+        Map<Integer, Country> countries = new HashMap<>();
+        Map<Integer, Division> divisions = new HashMap<>();
+        Map<Integer, List<Division>> divisionsByCountry = new HashMap<>();
+
+        try (Connection connection = JDBC.getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT Country_ID, Country FROM countries");
+                 ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    int countryID = resultSet.getInt("Country_ID");
+                    countries.put(countryID, new Country(countryID, resultSet.getString("Country")));
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement("SELECT Division_ID, Division, Country_ID FROM first_level_divisions ORDER BY Division_ID");
+                 ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    Division division = new Division(resultSet.getInt("Division_ID"), resultSet.getString("Division"), resultSet.getInt("Country_ID"));
+                    divisions.put(division.getDivisionID(), division);
+                    divisionsByCountry.computeIfAbsent(division.getCountryID(), key -> new ArrayList<>()).add(division);
+                }
+            }
+        }
+        return new Snapshot(countries, divisions, divisionsByCountry);
+    }
+}
@@ -0,0 +1,96 @@
+package Database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Hands out primary keys for one table using the hi-lo pattern.
+ * <p>
+ * Blocks of IDs are reserved from the id_sequences table with a single atomic UPDATE, and IDs inside a block are
+ * handed out from memory with a lock-free counter. Each client gets its own blocks, so two clients inserting at the
+ * same time can never be given the same ID. Unused IDs in a block are skipped when the application exits.
+ * <p>
+ * The id_sequences table and its rows are created by sql/id_sequences.sql; the client does not create them.
+ */
+public class IdAllocator {
+
+    private final String sequenceName;
+    private final String idColumn;
+    private final int blockSize;
+    private final AtomicReference<Block> block = new AtomicReference<>(new Block(0, 0));
+
+    /**
+     * A reserved range of IDs, [next, limit).
+     */
+    private static class Block {
+        private final AtomicInteger next;
+        private final int limit;
+
+        private Block(int first, int limit) {
+            this.next = new AtomicInteger(first);
+            this.limit = limit;
+        }
+    }
+
+    /**
+     * Creates an allocator for a table.
+     *
+     * @param tableName the table the IDs are for; also used as the sequence name
+     * @param idColumn  the primary key column of the table
+     * @param blockSize the number of IDs reserved per round trip
+     */
+    public IdAllocator(String tableName, String idColumn, int blockSize) {
+        this.sequenceName = tableName;
+        this.idColumn = idColumn;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Returns the next unused ID, reserving a new block from the database when the current one runs out.
+     *
+     * @return a unique ID
+     * @throws SQLException if a new block cannot be reserved
+     */
+    public int next() throws SQLException {
+        while (true) {
+            Block current = block.get();
+            int id = current.next.getAndIncrement();
+            if (id < current.limit) {
+                return id;
+            }
+            synchronized (this) {
+                if (block.get() == current) {
+                    block.set(reserve());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reserves the next block of IDs. The sequence never goes below MAX(id) + 1, so rows inserted by clients that do not
+     * use the sequence are skipped over. Always called while holding this allocator's lock.
+     */
+    private Block reserve() throws SQLException {
+        try (Connection connection = JDBC.getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE id_sequences SET Next_Value = LAST_INSERT_ID(GREATEST(Next_Value, "
+                            + "(SELECT COALESCE(MAX(" + idColumn + "), 0) + 1 FROM " + sequenceName + "))) + ? WHERE Sequence_Name = ?")) {
+                statement.setInt(1, blockSize);
+                statement.setString(2, sequenceName);
+                if (statement.executeUpdate() == 0) {
+                    throw new SQLException("No id_sequences row for " + sequenceName + "; apply sql/id_sequences.sql");
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement("SELECT LAST_INSERT_ID()");
+                 ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                int first = resultSet.getInt(1);
+                return new Block(first, first + blockSize);
+            }
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package Database;
+
+import java.util.List;
+
+/**
+ * An AVL tree of half-open [start, end) intervals, each tagged with an appointment ID.
+ * <p>
+ * Nodes are ordered by start and then ID, and every node stores the largest end in its subtree, so an overlap query
+ * skips any subtree that ends before the query starts or begins after the query ends. Insert, remove and query all
+ * run in O(log n + k) for k matches.
+ */
+class IntervalTree {
+
+    private Node root;
+    private int size;
+
+    private static class Node {
+        private final long start;
+        private final long end;
+        private final int id;
+        private long maxEnd;
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        private Node(long start, long end, int id) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.maxEnd = end;
+        }
+    }
+
+    /**
+     * Returns the number of intervals in the tree.
+     *
+     * @return the number of intervals
+     */
+    int size() { return size; }
+
+    /**
+     * Adds an interval to the tree.
+     *
+     * @param start the inclusive start of the interval
+     * @param end   the exclusive end of the interval
+     * @param id    the ID of the appointment the interval belongs to
+     */
+    void insert(long start, long end, int id) {
+        root = insert(root, new Node(start, end, id));
+        size++;
+    }
+
+    /**
+     * Removes an interval from the tree.
+     *
+     * @param start the start the interval was inserted with
+     * @param id    the ID the interval was inserted with
+     */
+    void remove(long start, int id) {
+        int before = size;
+        root = remove(root, start, id);
+        if (size == before) {
+            throw new IllegalStateException("Interval for appointment " + id + " not found");
+        }
+    }
+
+    /**
+     * Collects the IDs of every interval that overlaps [start, end).
+     *
+     * @param start  the inclusive start of the query
+     * @param end    the exclusive end of the query
+     * @param result the list the matching IDs are added to
+     */
+    void findOverlapping(long start, long end, List<Integer> result) {
+        findOverlapping(root, start, end, result);
+    }
+
+    private static void findOverlapping(Node node, long start, long end, List<Integer> result) {
+        if (node == null || node.maxEnd <= start) {
+            return;
+        }
+        findOverlapping(node.left, start, end, result);
+        if (node.start < end) {
+            if (node.end > start) {
+                result.add(node.id);
+            }
+            findOverlapping(node.right, start, end, result);
+        }
+    }
+
+    private static int compare(long start, int id, Node node) {
+        int byStart = Long.compare(start, node.start);
+        return byStart != 0 ? byStart : Integer.compare(id, node.id);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.id, node) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return rebalance(node);
+    }
+
+    private Node remove(Node node, long start, int id) {
+        if (node == null) {
+            return null;
+        }
+        int comparison = compare(start, id, node);
+        if (comparison < 0) {
+            node.left = remove(node.left, start, id);
+        } else if (comparison > 0) {
+            node.right = remove(node.right, start, id);
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            Node replacement = new Node(successor.start, successor.end, successor.id);
+            replacement.right = removeMin(node.right);
+            replacement.left = node.left;
+            return rebalance(replacement);
+        }
+        return rebalance(node);
+    }
+
+    private static Node removeMin(Node node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return rebalance(node);
+    }
+
+    private static int height(Node node) { return node == null ? 0 : node.height; }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.end;
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rebalance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+}
@@ -1,7 +1,6 @@
 package Database;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 
@@ -10,11 +9,18 @@ public class JDBC {
      private static final String vendor = ":mysql:";
          private static final String location = "//localhost/";
              private static final String databaseName = "client_schedule";
-                 private static final String jdbcUrl = protocol + vendor + location + databaseName + "?connectionTimeZone = UTC"; // LOCAL
+                 private static final String jdbcUrl = protocol + vendor + location + databaseName + "?connectionTimeZone = UTC&useServerPrepStmts=true&rewriteBatchedStatements=true&sessionVariables=max_execution_time=30000"; // LOCAL
         private static final String driver = "com.mysql.cj.jdbc.Driver"; // Driver reference
         private static final String userName = "sqlUser"; // Username
         private static String password = "Passw0rd!"; // Password
-        private static Connection connection = null;  // Connection Interface
+        private static final int minPoolSize = 2; // Connections kept open while idle
+        private static final int maxPoolSize = 10; // Upper bound on concurrent connections
+        private static final long borrowTimeoutMillis = 30_000; // Wait for a free connection before failing
+        private static final long idleTimeoutMillis = 600_000; // Close connections above the minimum after this long idle
+        private static final long leakThresholdMillis = 60_000; // Report connections held longer than this
+        private static final int validationTimeoutSeconds = 5; // Liveness check on borrow
+        private static final int statementCacheSize = 64; // Prepared statements kept per connection
+        private static ConnectionPool pool = null;  // Pooled DataSource
         private static PreparedStatement preparedStatement;
 
          public static void makeConnection() {
@@ -22,7 +28,8 @@ public class JDBC {
           try {
               Class.forName(driver); // Locate Driver
               //password = Details.getPassword(); // Assign password
-              connection = DriverManager.getConnection(jdbcUrl, userName, password); // reference Connection object
+              pool = new ConnectionPool(jdbcUrl, userName, password, minPoolSize, maxPoolSize, borrowTimeoutMillis,
+                      idleTimeoutMillis, leakThresholdMillis, validationTimeoutSeconds, statementCacheSize); // open the pool
               System.out.println("Connection successful!");
           }
                   catch(ClassNotFoundException e) {
@@ -33,15 +40,33 @@ public class JDBC {
                   }
           }
 
-            public static Connection getConnection() {
-                return connection;
+            /**
+             * Borrows a connection from the pool. Closing the connection returns it to the pool, so callers should
+             * open it in a try-with-resources block.
+             *
+             * @return a pooled connection
+             * @throws SQLException if no connection becomes available
+             */
+            public static Connection getConnection() throws SQLException {
+                if (pool == null) {
+                    throw new SQLException("Connection pool has not been started");
+                }
+                return pool.getConnection();
             }
+
+            /**
+             * Returns the pool behind getConnection(), for its borrow and leak metrics.
+             *
+             * @return the connection pool
+             */
+            public static ConnectionPool getDataSource() {
+                return pool;
+            }
+
              public static void closeConnection() {
-                 try {
-                     connection.close();
+                 if (pool != null) {
+                     pool.close();
                      System.out.println("Connection closed!");
-                 } catch (SQLException e) {
-                     System.out.println(e.getMessage());
                  }
              }
 
@@ -0,0 +1,189 @@
+package Database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded two-way cache between the IDs and names of one table, such as customers, users or contacts.
+ * <p>
+ * Lookups in either direction are answered from memory once the pair has been seen, whether through a lookup, a
+ * fetch of the whole table, or a write. The least recently used pairs are dropped once the cache is full. Names and
+ * IDs that were looked up and not found are remembered for a short while too, so repeated misses do not reach the
+ * database either.
+ */
+public class NameDictionary {
+
+    private static final long NEGATIVE_TTL_MILLIS = 60_000;
+
+    private final String tableName;
+    private final String idColumn;
+    private final String nameColumn;
+    private final int maxSize;
+    private final Map<Integer, String> namesByID;
+    private final Map<String, Integer> idsByName = new HashMap<>();
+    private final Map<Object, Long> misses;
+
+    /**
+     * Creates an empty dictionary for a table.
+     *
+     * @param tableName  the table holding the pairs
+     * @param idColumn   the ID column of the table
+     * @param nameColumn the name column of the table
+     * @param maxSize    the maximum number of pairs kept
+     */
+    public NameDictionary(String tableName, String idColumn, String nameColumn, int maxSize) {
+        this.tableName = tableName;
+        this.idColumn = idColumn;
+        this.nameColumn = nameColumn;
+        this.maxSize = maxSize;
+        this.namesByID = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, String> eldest) {
+                if (size() > NameDictionary.this.maxSize) {
+                    idsByName.remove(eldest.getValue(), eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.misses = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Long> eldest) {
+                return size() > NameDictionary.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the ID for a name.
+     *
+     * @param name the name to look up
+     * @return the ID of the row with that name
+     * @throws SQLException if there is no such row, or if there is an error retrieving data from the database
+     */
+    public int getID(String name) throws SQLException {
+        synchronized (this) {
+            Integer id = idsByName.get(name);
+            if (id != null) {
+                // touch the pair so it counts as recently used
+                namesByID.get(id);
+                return id;
+            }
+            if (isKnownMiss(name)) {
+                throw new SQLException(name + " not found");
+            }
+        }
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT " + idColumn + " FROM " + tableName + " WHERE " + nameColumn + " = ?")) {
+            statement.setString(1, name);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    int id = resultSet.getInt(idColumn);
+                    put(id, name);
+                    return id;
+                }
+            }
+        }
+        recordMiss(name);
+        throw new SQLException(name + " not found");
+    }
+
+    /**
+     * Returns the name for an ID.
+     *
+     * @param id the ID to look up
+     * @return the name of the row with that ID
+     * @throws SQLException if there is no such row, or if there is an error retrieving data from the database
+     */
+    public String getName(int id) throws SQLException {
+        synchronized (this) {
+            String name = namesByID.get(id);
+            if (name != null) {
+                return name;
+            }
+            if (isKnownMiss(id)) {
+                throw new SQLException(id + " not found");
+            }
+        }
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT " + nameColumn + " FROM " + tableName + " WHERE " + idColumn + " = ?")) {
+            statement.setInt(1, id);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    String name = resultSet.getString(nameColumn);
+                    put(id, name);
+                    return name;
+                }
+            }
+        }
+        recordMiss(id);
+        throw new SQLException(id + " not found");
+    }
+
+    /**
+     * Records a pair, replacing any earlier name for the ID and clearing any remembered misses for either side. Called
+     * by fetches that read the pairs anyway and by the write paths.
+     *
+     * @param id   the ID
+     * @param name the name
+     */
+    public synchronized void put(int id, String name) {
+        String previous = namesByID.put(id, name);
+        if (previous != null && !previous.equals(name)) {
+            idsByName.remove(previous, id);
+        }
+        idsByName.put(name, id);
+        misses.remove(id);
+        misses.remove(name);
+    }
+
+    /**
+     * Forgets the pair for an ID. Called when the row is deleted.
+     *
+     * @param id the ID
+     */
+    public synchronized void remove(int id) {
+        String name = namesByID.remove(id);
+        if (name != null) {
+            idsByName.remove(name, id);
+        }
+    }
+
+    /**
+     * Loads pairs from the table until the dictionary is full.
+     *
+     * @throws SQLException if there is an error retrieving data from the database
+     */
+    public void warm() throws SQLException {
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT " + idColumn + ", " + nameColumn + " FROM " + tableName + " LIMIT ?")) {
+            statement.setInt(1, maxSize);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    put(resultSet.getInt(idColumn), resultSet.getString(nameColumn));
+                }
+            }
+        }
+    }
+
+    private boolean isKnownMiss(Object key) {
+        Long expiresAt = misses.get(key);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt < System.currentTimeMillis()) {
+            misses.remove(key);
+            return false;
+        }
+        return true;
+    }
+
+    private synchronized void recordMiss(Object key) {
+        misses.put(key, System.currentTimeMillis() + NEGATIVE_TTL_MILLIS);
+    }
+}
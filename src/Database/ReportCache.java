@@ -0,0 +1,58 @@
+package Database;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Runs the reports in the background and keeps their results until the data behind them changes.
+ * <p>
+ * Each report is an independent job on the DataService, so reports requested together run in parallel. The result is
+ * kept together with the ReportCounters version it was computed from; asking for the report again returns the same
+ * future as long as the version has not moved on, whether it has completed or is still running, so a report is never
+ * computed twice for the same data. Failed reports are not kept.
+ */
+public class ReportCache {
+
+    private static final Map<String, Entry<?>> entries = new HashMap<>();
+
+    /**
+     * A report result and the version of the data it was computed from.
+     */
+    private static class Entry<T> {
+        private final long version;
+        private final CompletableFuture<T> result;
+
+        private Entry(long version, CompletableFuture<T> result) {
+            this.version = version;
+            this.result = result;
+        }
+    }
+
+    /**
+     * Returns the result of a report, computing it in the background if there is no result for the current data.
+     *
+     * @param reportName the name the result is kept under
+     * @param report     computes the report
+     * @param <T>        the type of the result
+     * @return a future of the result; it is shared, so cancelling it has no effect on other callers
+     */
+    @SuppressWarnings("unchecked")
+    public static synchronized <T> CompletableFuture<T> get(String reportName, DataService.Query<T> report) {
+        long version = ReportCounters.version();
+        Entry<T> entry = (Entry<T>) entries.get(reportName);
+        if (entry != null && version >= 0 && entry.version == version && !entry.result.isCompletedExceptionally()) {
+            return entry.result.copy();
+        }
+        CompletableFuture<T> result = DataService.submit(report);
+        entries.put(reportName, new Entry<>(version, result));
+        return result.copy();
+    }
+
+    /**
+     * Discards every kept result, so each report is computed again when it is next asked for.
+     */
+    public static synchronized void invalidate() {
+        entries.clear();
+    }
+}
@@ -0,0 +1,259 @@
+package Database;
+
+import Models.Appointment;
+import Models.Division;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.sql.SQLException;
+import java.time.format.DateTimeFormatter;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Report totals kept current in memory: appointments per type, per month of each year and per contact, and customers
+ * per division.
+ * <p>
+ * The totals are seeded from the in-memory copies the screens already keep, rather than from another read of the
+ * tables: the type and contact totals from the AppointmentStore indexes, the month totals from a groupBy over the
+ * AppointmentColumns and the division totals from the CustomerNameIndex, each loaded first if nothing has loaded it. From then on each copy moves rows between
+ * totals as it applies a write, whether made by this client or merged in from another, while it still knows where the
+ * row was counted before, so no per-row state is kept here. A copy seeds its totals and reports its deltas under its
+ * own lock, so no update is lost or counted twice. Each total is a LongAdder, and reading a report costs one pass over
+ * its groups. As a backstop the totals are seeded again once they are older than the refresh interval, which also
+ * lets the copies merge in writes no change feed reported.
+ */
+public class ReportCounters {
+
+    private static final long REFRESH_INTERVAL_MILLIS = 300_000;
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("MMMM yyyy", Locale.getDefault());
+
+    private static final Map<String, LongAdder> byType = new ConcurrentHashMap<>();
+    private static final Map<Integer, LongAdder> byMonth = new ConcurrentHashMap<>();
+    private static final Map<Integer, LongAdder> byContact = new ConcurrentHashMap<>();
+    private static final Map<Integer, LongAdder> byDivision = new ConcurrentHashMap<>();
+
+    // only one thread seeds at a time; the copies' locks are taken inside this one, never the other way round
+    private static final Object seedLock = new Object();
+    private static volatile boolean seeded = false;
+    private static volatile long seededAt = 0;
+    private static final AtomicLong version = new AtomicLong();
+
+    /**
+     * Returns a number that changes whenever any total changes, so results computed from the totals can be cached
+     * until then. Returns -1 while the totals are not seeded or are due to be seeded again; results computed then
+     * should not be cached.
+     *
+     * @return the version of the totals, or -1
+     */
+    public static long version() {
+        if (!seeded || System.currentTimeMillis() - seededAt > REFRESH_INTERVAL_MILLIS) {
+            return -1;
+        }
+        return version.get();
+    }
+
+    /**
+     * Returns the number of appointments of each type.
+     *
+     * @return an ObservableList of (type, number of appointments) entries, ordered by type
+     * @throws SQLException if the totals have to be seeded and there is an error retrieving data from the database
+     */
+    public static ObservableList<Map.Entry<String, Integer>> countAppointmentsByType() throws SQLException {
+        ensureSeeded();
+        List<String> types = new ArrayList<>(byType.keySet());
+        types.sort(null);
+        ObservableList<Map.Entry<String, Integer>> counts = FXCollections.observableArrayList();
+        for (String type : types) {
+            addIfPositive(counts, type, byType.get(type));
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the number of appointments starting in each month of each year.
+     *
+     * @return an ObservableList of (month and year, number of appointments) entries, in calendar order
+     * @throws SQLException if the totals have to be seeded and there is an error retrieving data from the database
+     */
+    public static ObservableList<Map.Entry<String, Integer>> countAppointmentsByMonth() throws SQLException {
+        ensureSeeded();
+        List<Integer> months = new ArrayList<>(byMonth.keySet());
+        months.sort(null);
+        ObservableList<Map.Entry<String, Integer>> counts = FXCollections.observableArrayList();
+        for (int month : months) {
+            addIfPositive(counts, AppointmentColumns.monthOf(month).format(MONTH_FORMAT), byMonth.get(month));
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the number of appointments of each contact.
+     *
+     * @return an ObservableList of (contact name, number of appointments) entries, ordered by contact ID
+     * @throws SQLException if the totals or the contact names have to be loaded and there is an error retrieving data
+     *                      from the database
+     */
+    public static ObservableList<Map.Entry<String, Integer>> countAppointmentsByContact() throws SQLException {
+        ensureSeeded();
+        List<Integer> contactIDs = new ArrayList<>(byContact.keySet());
+        contactIDs.sort(null);
+        ObservableList<Map.Entry<String, Integer>> counts = FXCollections.observableArrayList();
+        for (int contactID : contactIDs) {
+            addIfPositive(counts, ContactHelper.getContactNameByID(contactID), byContact.get(contactID));
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the number of customers in each first-level division.
+     *
+     * @return an ObservableList of (division, number of customers) entries, ordered by division ID
+     * @throws SQLException if the totals or the divisions have to be loaded and there is an error retrieving data from
+     *                      the database
+     */
+    public static ObservableList<Map.Entry<String, Integer>> countCustomersByDivision() throws SQLException {
+        ensureSeeded();
+        List<Integer> divisionIDs = new ArrayList<>(byDivision.keySet());
+        divisionIDs.sort(null);
+        ObservableList<Map.Entry<String, Integer>> counts = FXCollections.observableArrayList();
+        for (int divisionID : divisionIDs) {
+            Division division = GeographyCache.getDivision(divisionID);
+            addIfPositive(counts, division == null ? String.valueOf(divisionID) : division.getDivisionName(), byDivision.get(divisionID));
+        }
+        return counts;
+    }
+
+    /**
+     * Moves an appointment between the type and contact totals. Called by the AppointmentStore, under its lock, for
+     * every appointment it adds, replaces or removes once loaded.
+     *
+     * @param previous    the appointment as it was counted before, or null if it is new
+     * @param appointment the appointment as it now is, or null if it was deleted
+     */
+    static void appointmentChanged(Appointment previous, Appointment appointment) {
+        if (previous != null) {
+            adder(byType, previous.getAppointmentType()).decrement();
+            adder(byContact, previous.getContactID()).decrement();
+        }
+        if (appointment != null) {
+            adder(byType, appointment.getAppointmentType()).increment();
+            adder(byContact, appointment.getContactID()).increment();
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Moves an appointment between the month totals. Called by the AppointmentColumns, under their write lock, for
+     * every row they add or remove once loaded.
+     *
+     * @param previousMonth the month key of the row the appointment had before, or AppointmentColumns.NO_VALUE
+     * @param month         the month key of the row it now has, or AppointmentColumns.NO_VALUE if it was deleted
+     */
+    static void appointmentMoved(int previousMonth, int month) {
+        if (previousMonth != AppointmentColumns.NO_VALUE) {
+            adder(byMonth, previousMonth).decrement();
+        }
+        if (month != AppointmentColumns.NO_VALUE) {
+            adder(byMonth, month).increment();
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Moves a customer between the division totals. Called by the CustomerNameIndex, under its lock, for every
+     * customer it adds, replaces or removes once loaded.
+     *
+     * @param previousDivisionID the division the customer was counted in before, or null if it is new
+     * @param divisionID         the division it is now in, or null if it was deleted
+     */
+    static void customerMoved(Integer previousDivisionID, Integer divisionID) {
+        if (previousDivisionID != null) {
+            adder(byDivision, previousDivisionID).decrement();
+        }
+        if (divisionID != null) {
+            adder(byDivision, divisionID).increment();
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Replaces the type and contact totals. Called by the AppointmentStore under its lock.
+     *
+     * @param countsByType    the number of appointments of each type
+     * @param countsByContact the number of appointments of each contact ID
+     */
+    static void seedAppointments(Map<String, Integer> countsByType, Map<Integer, Integer> countsByContact) {
+        seed(byType, countsByType);
+        seed(byContact, countsByContact);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Replaces the month totals. Called by the AppointmentColumns under their read lock.
+     *
+     * @param months the appointments grouped by AppointmentColumns.MONTH alone
+     */
+    static void seedMonths(AppointmentColumns.Groups months) {
+        byMonth.clear();
+        for (int group = 0; group < months.size(); group++) {
+            adder(byMonth, months.key(group, 0)).add(months.count(group));
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Replaces the division totals. Called by the CustomerNameIndex under its lock.
+     *
+     * @param countsByDivision the number of customers in each division ID
+     */
+    static void seedCustomers(Map<Integer, Integer> countsByDivision) {
+        seed(byDivision, countsByDivision);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Discards the totals so the next report seeds them again.
+     */
+    public static void invalidate() {
+        seeded = false;
+    }
+
+    private static void ensureSeeded() throws SQLException {
+        if (seeded && System.currentTimeMillis() - seededAt <= REFRESH_INTERVAL_MILLIS) {
+            return;
+        }
+        synchronized (seedLock) {
+            if (seeded && System.currentTimeMillis() - seededAt <= REFRESH_INTERVAL_MILLIS) {
+                return;
+            }
+            AppointmentStore.seedReportCounters();
+            AppointmentColumns.seedReportCounters();
+            CustomerNameIndex.seedReportCounters();
+            seededAt = System.currentTimeMillis();
+            seeded = true;
+        }
+    }
+
+    private static <K> void seed(Map<K, LongAdder> counters, Map<K, Integer> counts) {
+        counters.clear();
+        counts.forEach((key, count) -> adder(counters, key).add(count));
+    }
+
+    private static <K> LongAdder adder(Map<K, LongAdder> counters, K key) {
+        return counters.computeIfAbsent(key, k -> new LongAdder());
+    }
+
+    private static void addIfPositive(List<Map.Entry<String, Integer>> counts, String label, LongAdder adder) {
+        int total = adder == null ? 0 : adder.intValue();
+        if (total > 0) {
+            counts.add(new AbstractMap.SimpleImmutableEntry<>(label, total));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package Database;
+
+import java.util.Objects;
+
+/**
+ * Identifies a resource an appointment books: a customer, a contact or a user.
+ */
+public final class ResourceKey {
+
+    /**
+     * The kind of resource, along with the appointments column that references it.
+     */
+    public enum Type {
+        CUSTOMER("Customer_ID"),
+        CONTACT("Contact_ID"),
+        USER("User_ID");
+
+        private final String column;
+
+        Type(String column) {
+            this.column = column;
+        }
+
+        /**
+         * Returns the appointments column holding this resource's ID.
+         *
+         * @return the column name
+         */
+        public String getColumn() { return column; }
+    }
+
+    private final Type type;
+    private final int id;
+
+    private ResourceKey(Type type, int id) {
+        this.type = type;
+        this.id = id;
+    }
+
+    /**
+     * Returns the key for a customer.
+     *
+     * @param customerID the ID of the customer
+     * @return the resource key
+     */
+    public static ResourceKey customer(int customerID) { return new ResourceKey(Type.CUSTOMER, customerID); }
+
+    /**
+     * Returns the key for a contact.
+     *
+     * @param contactID the ID of the contact
+     * @return the resource key
+     */
+    public static ResourceKey contact(int contactID) { return new ResourceKey(Type.CONTACT, contactID); }
+
+    /**
+     * Returns the key for a user.
+     *
+     * @param userID the ID of the user
+     * @return the resource key
+     */
+    public static ResourceKey user(int userID) { return new ResourceKey(Type.USER, userID); }
+
+    /**
+     * Returns the kind of resource.
+     *
+     * @return the resource type
+     */
+    public Type getType() { return type; }
+
+    /**
+     * Returns the ID of the resource.
+     *
+     * @return the resource ID
+     */
+    public int getID() { return id; }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof ResourceKey)) {
+            return false;
+        }
+        ResourceKey key = (ResourceKey) other;
+        return type == key.type && id == key.id;
+    }
+
+    @Override
+    public int hashCode() { return Objects.hash(type, id); }
+
+    @Override
+    public String toString() { return type + ":" + id; }
+}
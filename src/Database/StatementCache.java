@@ -0,0 +1,204 @@
+package Database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A least-recently-used cache of prepared statements for one physical connection, keyed by SQL text.
+ * <p>
+ * Statements handed out by the cache are proxies; closing one closes its result set, clears its parameters and puts
+ * the physical statement back in the cache. When the cache is full the least recently used idle statement is closed.
+ */
+class StatementCache {
+
+    private final Connection connection;
+    private final int maxSize;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LongAdder evictions;
+    private final LinkedHashMap<String, CachedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Creates an empty cache for a connection.
+     *
+     * @param connection the physical connection statements are prepared on
+     * @param maxSize    the maximum number of statements kept prepared
+     * @param hits       incremented each time a cached statement is reused
+     * @param misses     incremented each time a statement has to be prepared
+     * @param evictions  incremented each time a cached statement is closed to make room
+     */
+    StatementCache(Connection connection, int maxSize, LongAdder hits, LongAdder misses, LongAdder evictions) {
+        this.connection = connection;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+    }
+
+    /**
+     * Returns a prepared statement for the given SQL, reusing a cached one when it is not already in use.
+     *
+     * @param sql               the SQL text of the statement
+     * @param logicalConnection the connection the statement reports through getConnection()
+     * @return a prepared statement whose close() returns it to the cache
+     * @throws SQLException if the statement cannot be prepared
+     */
+    synchronized PreparedStatement prepare(String sql, Connection logicalConnection) throws SQLException {
+        CachedStatement cached = statements.get(sql);
+        if (cached != null && cached.owner == null) {
+            hits.increment();
+        } else if (cached != null) {
+            // the same SQL is already open in this borrow, so hand out a statement that is not cached
+            misses.increment();
+            return connection.prepareStatement(sql);
+        } else {
+            misses.increment();
+            cached = new CachedStatement(connection.prepareStatement(sql));
+            statements.put(sql, cached);
+            evict();
+        }
+        cached.owner = new Handle(cached, logicalConnection);
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, cached.owner);
+    }
+
+    /**
+     * Returns every statement still checked out to the cache, closing their result sets.
+     */
+    synchronized void releaseAll() {
+        for (CachedStatement cached : statements.values()) {
+            if (cached.owner != null) {
+                cached.owner.released = true;
+                cached.release();
+            }
+        }
+    }
+
+    /**
+     * Closes every cached statement. Called when the physical connection is closed.
+     */
+    synchronized void closeAll() {
+        for (CachedStatement cached : statements.values()) {
+            cached.close();
+        }
+        statements.clear();
+    }
+
+    /**
+     * Returns the number of statements currently cached.
+     *
+     * @return the number of cached statements
+     */
+    synchronized int size() { return statements.size(); }
+
+    private void evict() {
+        Iterator<CachedStatement> iterator = statements.values().iterator();
+        List<CachedStatement> evicted = new ArrayList<>();
+        int excess = statements.size() - maxSize;
+        while (excess > 0 && iterator.hasNext()) {
+            CachedStatement cached = iterator.next();
+            if (cached.owner == null) {
+                iterator.remove();
+                evicted.add(cached);
+                excess--;
+            }
+        }
+        for (CachedStatement cached : evicted) {
+            evictions.increment();
+            cached.close();
+        }
+    }
+
+    /**
+     * A physical prepared statement and the handle it is currently checked out to, if any.
+     */
+    private static class CachedStatement {
+        private final PreparedStatement statement;
+        private Handle owner;
+
+        private CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        private void release() {
+            owner = null;
+            try {
+                ResultSet resultSet = statement.getResultSet();
+                if (resultSet != null) {
+                    resultSet.close();
+                }
+                statement.clearParameters();
+            } catch (SQLException e) {
+                System.out.println("Error:" + e.getMessage());
+            }
+        }
+
+        private void close() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                System.out.println("Error:" + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The proxy handed to one caller. After close() it rejects every call, so a stale reference cannot touch the
+     * statement once it has been handed to someone else.
+     */
+    private class Handle implements InvocationHandler {
+        private final CachedStatement cached;
+        private final Connection logicalConnection;
+        private boolean released;
+
+        private Handle(CachedStatement cached, Connection logicalConnection) {
+            this.cached = cached;
+            this.logicalConnection = logicalConnection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    synchronized (StatementCache.this) {
+                        if (!released) {
+                            released = true;
+                            cached.release();
+                        }
+                    }
+                    return null;
+                case "isClosed":
+                    return released;
+                case "getConnection":
+                    return logicalConnection;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached" + cached.statement;
+                default:
+                    break;
+            }
+            if (released) {
+                throw new SQLException("Statement is closed");
+            }
+            try {
+                return method.invoke(cached.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
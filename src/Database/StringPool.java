@@ -0,0 +1,44 @@
+package Database;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A shared dictionary for the low-cardinality text columns that repeat across many rows, such as appointment types,
+ * locations, financing options and service types.
+ * <p>
+ * Every call to ResultSet.getString returns a new String, so without this a million loaded appointments would hold a
+ * million copies of "Sales Appointment". The mapping code in the helpers passes those columns through
+ * {@link #canonical(String)} and keeps the shared instance instead, which leaves one copy per distinct value. The pool
+ * is bounded: once it is full, values it has not seen are returned as they are, so a column with more distinct values
+ * than expected costs no more than it did before.
+ * <p>
+ * Division and country names do not go through the pool; customers reference the names held by the GeographyCache.
+ */
+public class StringPool {
+
+    private static final int MAX_SIZE = 50_000;
+
+    private static final Map<String, String> pool = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the shared instance of a value.
+     *
+     * @param value the value, as read from a result set or entered on a form
+     * @return an equal String that is shared by every caller, or the value itself if it is null or the pool is full
+     */
+    public static String canonical(String value) {
+        if (value == null) {
+            return null;
+        }
+        String shared = pool.get(value);
+        if (shared != null) {
+            return shared;
+        }
+        if (pool.size() >= MAX_SIZE) {
+            return value;
+        }
+        shared = pool.putIfAbsent(value, value);
+        return shared == null ? value : shared;
+    }
+}
@@ -0,0 +1,135 @@
+package Database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the statements of one logical change and runs them in a single transaction.
+ * <p>
+ * Statements are queued with {@link #add(String, Object...)} and nothing touches the database until {@link #commit()}.
+ * On commit, the statements run in the order they were queued, each run of consecutive statements with the same SQL
+ * text is sent as one JDBC batch, and the transaction is committed once. Bookkeeping rows that no other statement
+ * depends on, such as change_log entries and tombstones, are queued with {@link #addLast(String, Object...)} instead:
+ * they run after every other statement, all of them with the same SQL text in one batch, so they do not split the runs
+ * of the data statements and cost one round trip per kind. Work registered with {@link #afterCommit(Runnable)}, such as
+ * updating in-memory indexes, only runs once the commit has succeeded.
+ */
+public class UnitOfWork {
+
+    private final List<String> statements = new ArrayList<>();
+    private final List<Object[]> parameters = new ArrayList<>();
+    private final Map<String, List<Object[]>> last = new LinkedHashMap<>();
+    private final List<Runnable> afterCommit = new ArrayList<>();
+    private boolean committed = false;
+
+    /**
+     * Queues a statement.
+     *
+     * @param sql        the SQL text of the statement
+     * @param parameters the values bound to the statement's placeholders, in order
+     */
+    public void add(String sql, Object... parameters) {
+        if (committed) {
+            throw new IllegalStateException("Unit of work has already been committed");
+        }
+        this.statements.add(sql);
+        this.parameters.add(parameters);
+    }
+
+    /**
+     * Queues a statement to run after every statement queued with {@link #add(String, Object...)}. Statements queued
+     * this way must not depend on each other or be depended on, since all of those with the same SQL text run together.
+     *
+     * @param sql        the SQL text of the statement
+     * @param parameters the values bound to the statement's placeholders, in order
+     */
+    public void addLast(String sql, Object... parameters) {
+        if (committed) {
+            throw new IllegalStateException("Unit of work has already been committed");
+        }
+        last.computeIfAbsent(sql, key -> new ArrayList<>()).add(parameters);
+    }
+
+    /**
+     * Registers work to run after the transaction commits. It does not run if the commit fails.
+     *
+     * @param action the work to run
+     */
+    public void afterCommit(Runnable action) {
+        afterCommit.add(action);
+    }
+
+    /**
+     * Returns whether any statements have been queued.
+     *
+     * @return true if nothing has been queued
+     */
+    public boolean isEmpty() { return statements.isEmpty() && last.isEmpty(); }
+
+    /**
+     * Runs every queued statement in one transaction and commits it. If any statement fails, the whole transaction is
+     * rolled back.
+     *
+     * @throws SQLException if there is an error writing to the database
+     */
+    public void commit() throws SQLException {
+        if (committed) {
+            throw new IllegalStateException("Unit of work has already been committed");
+        }
+        committed = true;
+        if (!isEmpty()) {
+            try (Connection connection = JDBC.getConnection()) {
+                connection.setAutoCommit(false);
+                try {
+                    int first = 0;
+                    while (first < statements.size()) {
+                        int end = first + 1;
+                        while (end < statements.size() && statements.get(end).equals(statements.get(first))) {
+                            end++;
+                        }
+                        executeBatch(connection, statements.get(first), parameters.subList(first, end));
+                        first = end;
+                    }
+                    for (Map.Entry<String, List<Object[]>> batch : last.entrySet()) {
+                        executeBatch(connection, batch.getKey(), batch.getValue());
+                    }
+                    connection.commit();
+                } catch (SQLException | RuntimeException e) {
+                    connection.rollback();
+                    throw e;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            }
+        }
+        for (Runnable action : afterCommit) {
+            action.run();
+        }
+    }
+
+    private static void executeBatch(Connection connection, String sql, List<Object[]> batch) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            if (batch.size() == 1) {
+                bind(statement, batch.get(0));
+                statement.execute();
+                return;
+            }
+            for (Object[] values : batch) {
+                bind(statement, values);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private static void bind(PreparedStatement statement, Object[] values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            statement.setObject(i + 1, values[i]);
+        }
+    }
+}
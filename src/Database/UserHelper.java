@@ -3,6 +3,7 @@ package Database;
 import Models.User;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -12,6 +13,8 @@ import java.sql.SQLException;
  */
 public class UserHelper {
 
+    private static final NameDictionary userNames = new NameDictionary("users", "User_ID", "User_Name", 1000);
+
     /**
      * Fetches all users from the users table in the database.
      *
@@ -21,19 +24,22 @@ public class UserHelper {
     public static ObservableList<User> fetchUsers() throws SQLException {
         ObservableList<User> usersList = FXCollections.observableArrayList();
 
-        PreparedStatement statement = JDBC.getConnection().prepareStatement("SELECT * FROM users ");
-        ResultSet resultSet = statement.executeQuery();
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT * FROM users ")) {
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    int userID = resultSet.getInt("User_ID");
+                    String username = resultSet.getString("User_Name");
+                    String password = resultSet.getString("Password");
 
-        while (resultSet.next()) {
-            int userID = resultSet.getInt("User_ID");
-            String username = resultSet.getString("User_Name");
-            String password = resultSet.getString("Password");
+                    User user = new User(userID, username, password);
+                    usersList.add(user);
+                    userNames.put(userID, username);
+                }
 
-            User user = new User(userID, username, password);
-            usersList.add(user);
+                return usersList;
+            }
         }
-
-        return usersList;
     }
 
     /**
@@ -45,47 +51,47 @@ public class UserHelper {
      * @throws SQLException if there is an error retrieving data from the database
      */
     public static boolean validateUser(String username, String password) throws SQLException {
-        PreparedStatement statement = JDBC.getConnection().prepareStatement("SELECT User_ID FROM users WHERE User_Name = ? AND Password = ?");
-        statement.setString(1, username);
-        statement.setString(2, password);
-        ResultSet resultSet = statement.executeQuery();
-        return resultSet.next();
+        try (Connection connection = JDBC.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT User_ID FROM users WHERE User_Name = ? AND Password = ?")) {
+            statement.setString(1, username);
+            statement.setString(2, password);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        }
     }
 
     /**
      * Fetches the user ID for a given username.
+     * Answered from the lookup cache once the pair has been seen.
      *
      * @param userName the username to search for.
      * @return the user ID for the given username.
      * @throws SQLException if there is an error retrieving data from the database
      */
     public static int getUserIDByName(String userName) throws SQLException {
-        PreparedStatement statement = JDBC.getConnection().prepareStatement("SELECT User_ID FROM users WHERE User_Name = ?");
-        statement.setString(1, userName);
-        ResultSet resultSet = statement.executeQuery();
-        if (resultSet.next()) {
-            return resultSet.getInt("User_ID");
-        } else {
-            throw new SQLException(userName + " not found");
-        }
+        return userNames.getID(userName);
     }
 
     /**
      * Fetches the username for a given user ID.
+     * Answered from the lookup cache once the pair has been seen.
      *
      * @param userID the user ID to search for.
      * @return the username for the given user ID.
      * @throws SQLException if there is an error retrieving data from the database
      */
     public static String getUserNameByID(int userID) throws SQLException {
-        PreparedStatement statement = JDBC.getConnection().prepareStatement("SELECT User_Name FROM users WHERE User_ID = ?");
-        statement.setInt(1, userID);
-        ResultSet resultSet = statement.executeQuery();
-        if (resultSet.next()) {
-            return resultSet.getString("User_Name");
-        } else {
-            throw new SQLException(userID + " not found");
-        }
+        return userNames.getName(userID);
+    }
+
+    /**
+     * Loads user IDs and names into the lookup cache so that forms can resolve them without a query.
+     *
+     * @throws SQLException if there is an error retrieving data from the database
+     */
+    public static void warmNameCache() throws SQLException {
+        userNames.warm();
     }
 
 }
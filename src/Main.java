@@ -1,4 +1,10 @@
+import Database.ChangeFeed;
+import Database.ContactHelper;
+import Database.CustomerHelper;
+import Database.DataService;
+import Database.GeographyCache;
 import Database.JDBC;
+import Database.UserHelper;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -22,6 +28,20 @@ public class Main extends Application {
         Parent root = FXMLLoader.load(getClass().getResource("FXMLViews/LoginForm.fxml"));
         primaryStage.setScene(new Scene(root, 600, 400));
         primaryStage.show();
+        DataService.load(() -> {
+            UserHelper.warmNameCache();
+            ContactHelper.warmNameCache();
+            CustomerHelper.warmNameCache();
+            return null;
+        }, ignored -> { });
+        DataService.load(() -> {
+            GeographyCache.load();
+            return null;
+        }, ignored -> { });
+        DataService.load(() -> {
+            ChangeFeed.start();
+            return null;
+        }, ignored -> { });
         if (Locale.getDefault().getLanguage().equals("fr")) {
             primaryStage.setTitle("Connexion");
         } else {
@@ -29,6 +49,16 @@ public class Main extends Application {
         }
     }
 
+    /**
+     * The stop method is called when the application exits; it stops the change feed and the background data threads and closes the connection pool.
+     */
+    @Override
+    public void stop() {
+        ChangeFeed.stop();
+        DataService.shutdown();
+        JDBC.closeConnection();
+    }
+
     /**
      * Main method for the Java Virtual Machine
      *
@@ -1,9 +1,14 @@
 package Models;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 /**
  * The Appointment class represents an appointment.
+ * <p>
+ * Start and end are held as epoch seconds of the local date and time, that is the seconds since 1970-01-01T00:00 on
+ * the local clock, so loading, sorting and comparing appointments needs no LocalDateTime. The LocalDateTime getters
+ * create one each time they are called.
  */
 public abstract class Appointment {
     private int appointmentID;
@@ -11,8 +16,8 @@ public abstract class Appointment {
     private String appointmentDescription;
     private String appointmentLocation;
     private String appointmentType;
-    private LocalDateTime startDateTime;
-    private LocalDateTime endDateTime;
+    private long startEpochSecond;
+    private long endEpochSecond;
     private int customerID;
     private int userID;
     private int contactID;
@@ -35,13 +40,34 @@ public abstract class Appointment {
     public Appointment(int appointmentID, String appointmentTitle, String appointmentDescription, String appointmentLocation, String appointmentType,
                        LocalDateTime startDateTime, LocalDateTime endDateTime, int customerID, int userID, int contactID) {
 
+        this(appointmentID, appointmentTitle, appointmentDescription, appointmentLocation, appointmentType,
+                toEpochSecond(startDateTime), toEpochSecond(endDateTime), customerID, userID, contactID);
+    }
+
+    /**
+     * Constructs an Appointment object with start and end given as local epoch seconds.
+     *
+     * @param appointmentID          the ID of the appointment
+     * @param appointmentTitle       the title of the appointment
+     * @param appointmentDescription the description of the appointment
+     * @param appointmentLocation    the location of the appointment
+     * @param appointmentType        the type of the appointment
+     * @param startEpochSecond       the start of the appointment, in seconds since 1970-01-01T00:00 local time
+     * @param endEpochSecond         the end of the appointment, in seconds since 1970-01-01T00:00 local time
+     * @param customerID             the ID of the customer associated with the appointment
+     * @param userID                 the ID of the user associated with the appointment
+     * @param contactID              the ID of the contact associated with the appointment
+     */
+    public Appointment(int appointmentID, String appointmentTitle, String appointmentDescription, String appointmentLocation, String appointmentType,
+                       long startEpochSecond, long endEpochSecond, int customerID, int userID, int contactID) {
+
         this.appointmentID = appointmentID;
         this.appointmentTitle = appointmentTitle;
         this.appointmentDescription = appointmentDescription;
         this.appointmentLocation = appointmentLocation;
         this.appointmentType = appointmentType;
-        this.startDateTime = startDateTime;
-        this.endDateTime = endDateTime;
+        this.startEpochSecond = startEpochSecond;
+        this.endEpochSecond = endEpochSecond;
         this.customerID = customerID;
         this.userID = userID;
         this.contactID = contactID;
@@ -88,14 +114,28 @@ public abstract class Appointment {
      *
      * @return the start date and time of the appointment
      */
-    public LocalDateTime getStartDateTime() { return startDateTime; }
+    public LocalDateTime getStartDateTime() { return toLocalDateTime(startEpochSecond); }
 
     /**
      * Returns the end date and time of the appointment.
      *
      * @return the end date and time of the appointment
      */
-    public LocalDateTime getEndDateTime() { return endDateTime; }
+    public LocalDateTime getEndDateTime() { return toLocalDateTime(endEpochSecond); }
+
+    /**
+     * Returns the start of the appointment as local epoch seconds.
+     *
+     * @return the seconds since 1970-01-01T00:00 local time
+     */
+    public long getStartEpochSecond() { return startEpochSecond; }
+
+    /**
+     * Returns the end of the appointment as local epoch seconds.
+     *
+     * @return the seconds since 1970-01-01T00:00 local time
+     */
+    public long getEndEpochSecond() { return endEpochSecond; }
 
     /**
      * Returns the ID of the customer associated with the appointment.
@@ -117,5 +157,20 @@ public abstract class Appointment {
      */
     public int getContactID() { return contactID; }
 
+    /**
+     * Converts a local date and time to the epoch seconds appointments hold.
+     *
+     * @param dateTime the local date and time
+     * @return the seconds since 1970-01-01T00:00 local time
+     */
+    public static long toEpochSecond(LocalDateTime dateTime) { return dateTime.toEpochSecond(ZoneOffset.UTC); }
+
+    /**
+     * Converts epoch seconds held by an appointment back to a local date and time.
+     *
+     * @param epochSecond the seconds since 1970-01-01T00:00 local time
+     * @return the local date and time
+     */
+    public static LocalDateTime toLocalDateTime(long epochSecond) { return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC); }
 
 }
@@ -0,0 +1,44 @@
+package Models;
+
+/**
+ * The Country class represents a country.
+ */
+public class Country {
+
+    private int countryID;
+    private String countryName;
+
+    /**
+     * Constructs a Country object with the specified parameters.
+     *
+     * @param countryID the ID of the country
+     * @param countryName the name of the country
+     */
+    public Country(int countryID, String countryName) {
+        this.countryID = countryID;
+        this.countryName = countryName;
+    }
+
+    /**
+     * Returns the ID of the country.
+     *
+     * @return the ID of the country
+     */
+    public int getCountryID() { return countryID; }
+
+    /**
+     * Returns the name of the country.
+     *
+     * @return the name of the country
+     */
+    public String getCountryName() { return countryName; }
+
+    /**
+     * Returns the string representation of the country.
+     *
+     * @return the name of the country
+     */
+    @Override
+    public String toString() { return countryName; }
+
+}
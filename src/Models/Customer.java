@@ -11,6 +11,7 @@ public class Customer {
     private String customerDivision;
     private String customerCountry;
     private String customerPostalCode;
+    private int customerDivisionID;
 
     /**
      * Constructs a Customer object with the specified parameters.
@@ -24,6 +25,23 @@ public class Customer {
      * @param customerPostalCode the postal code of the customer
      */
     public Customer(int customerID, String customerName, String customerPhoneNumber, String customerAddress, String customerDivision, String customerCountry, String customerPostalCode) {
+        this(customerID, customerName, customerPhoneNumber, customerAddress, customerDivision, customerCountry, customerPostalCode, 0);
+    }
+
+    /**
+     * Constructs a Customer object with the specified parameters.
+     *
+     * @param customerID the ID of the customer
+     * @param customerName the name of the customer
+     * @param customerPhoneNumber the phone number of the customer
+     * @param customerAddress the address of the customer
+     * @param customerDivision the division of the customer
+     * @param customerCountry the country of the customer
+     * @param customerPostalCode the postal code of the customer
+     * @param customerDivisionID the ID of the division of the customer
+     */
+    public Customer(int customerID, String customerName, String customerPhoneNumber, String customerAddress, String customerDivision, String customerCountry, String customerPostalCode,
+                    int customerDivisionID) {
         this.customerID = customerID;
         this.customerName = customerName;
         this.customerPhoneNumber = customerPhoneNumber;
@@ -31,6 +49,7 @@ public class Customer {
         this.customerDivision = customerDivision;
         this.customerCountry = customerCountry;
         this.customerPostalCode = customerPostalCode;
+        this.customerDivisionID = customerDivisionID;
     }
 
     /**
@@ -82,4 +101,11 @@ public class Customer {
      */
     public String getCustomerPostalCode() { return customerPostalCode; }
 
-}
\ No newline at end of file
+    /**
+     * Returns the ID of the division of the customer.
+     *
+     * @return the ID of the division, or 0 if it is not known
+     */
+    public int getCustomerDivisionID() { return customerDivisionID; }
+
+}
@@ -7,6 +7,7 @@ public class Division {
 
     private int divisionID;
     private String divisionName;
+    private int countryID;
 
     /**
      * Constructs a Division object with the specified parameters.
@@ -15,8 +16,20 @@ public class Division {
      * @param divisionName the name of the division
      */
     public Division(int divisionID, String divisionName) {
+        this(divisionID, divisionName, 0);
+    }
+
+    /**
+     * Constructs a Division object with the specified parameters.
+     *
+     * @param divisionID the ID of the division
+     * @param divisionName the name of the division
+     * @param countryID the ID of the country the division belongs to
+     */
+    public Division(int divisionID, String divisionName, int countryID) {
         this.divisionID = divisionID;
         this.divisionName = divisionName;
+        this.countryID = countryID;
     }
 
     /**
@@ -33,6 +46,13 @@ public class Division {
      */
     public String getDivisionName() { return divisionName; }
 
+    /**
+     * Returns the ID of the country the division belongs to.
+     *
+     * @return the ID of the country, or 0 if it is not known
+     */
+    public int getCountryID() { return countryID; }
+
     /**
      * Returns the string representation of the division.
      *
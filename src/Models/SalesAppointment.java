@@ -12,6 +12,12 @@ public class SalesAppointment extends Appointment {
         this.financingOptions = financingOptions;
     }
 
+    public SalesAppointment(int appointmentID, String appointmentTitle, String appointmentDescription, String appointmentLocation, String appointmentType, String vehicle, String financingOptions, long startEpochSecond, long endEpochSecond, int customerID, int userID, int contactID) {
+        super(appointmentID, appointmentTitle, appointmentDescription, appointmentLocation, appointmentType, startEpochSecond, endEpochSecond, customerID, userID, contactID);
+        this.vehicle = vehicle;
+        this.financingOptions = financingOptions;
+    }
+
     public String getVehicle() { return vehicle; }
 
     public String getFinancingOptions() { return financingOptions; }
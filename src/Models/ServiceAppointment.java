@@ -12,6 +12,12 @@ public class ServiceAppointment extends Appointment {
         this.serviceType = serviceType;
     }
 
+    public ServiceAppointment(int appointmentID, String appointmentTitle, String appointmentDescription, String appointmentLocation, String appointmentType, double serviceCost, String serviceType, long startEpochSecond, long endEpochSecond, int customerID, int userID, int contactID) {
+        super(appointmentID, appointmentTitle, appointmentDescription, appointmentLocation, appointmentType, startEpochSecond, endEpochSecond, customerID, userID, contactID);
+        this.serviceCost = serviceCost;
+        this.serviceType = serviceType;
+    }
+
     public String getServiceType() { return serviceType; }
 
     public double getServiceCost() { return serviceCost; }